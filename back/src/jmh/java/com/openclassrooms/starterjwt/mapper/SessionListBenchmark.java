@@ -0,0 +1,120 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU side of {@code GET /api/session}: {@link SessionMapper#toDto(List)} and Jackson writing the DTOs to the
+ * response stream. Divide {@code gc.alloc.rate.norm} by {@code sessionCount} for the bytes allocated per session.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SessionListBenchmark {
+  private static final int USER_POOL_SIZE = 1000;
+
+  @Param({"10", "1000", "100000"})
+  private int sessionCount;
+
+  @Param({"0", "10", "100"})
+  private int participantCount;
+
+  private SessionMapper sessionMapper;
+  private ObjectMapper objectMapper;
+  private List<Session> sessions;
+  private List<SessionDto> dtos;
+
+  @Setup
+  public void setUp() {
+    sessionMapper = Mappers.getMapper(SessionMapper.class);
+    // Same date handling as the Spring Boot auto-configured mapper
+    objectMapper = Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+
+    List<User> users = new ArrayList<>();
+    for (long i = 1; i <= USER_POOL_SIZE; i++) {
+      User user = new User("user" + i + "@studio.com", "Last", "First", "password", false);
+      user.setId(i);
+      users.add(user);
+    }
+    Teacher teacher = Teacher.builder().id(1L).lastName("Teacher").firstName("Yoga").build();
+
+    sessions = new ArrayList<>(sessionCount);
+    LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < sessionCount; i++) {
+      int from = i % (USER_POOL_SIZE - participantCount + 1);
+      sessions.add(Session.builder()
+          .id((long) i + 1)
+          .name("Session " + i)
+          .date(new Date(1700000000000L + i * 60000L))
+          .description("A relaxing yoga session for every level")
+          .teacher(teacher)
+          .users(new ArrayList<>(users.subList(from, from + participantCount)))
+          .capacity(participantCount + 10)
+          .createdAt(now)
+          .updatedAt(now)
+          .build());
+    }
+    dtos = sessionMapper.toDto(sessions);
+  }
+
+  @Benchmark
+  public List<SessionDto> mapToDto() {
+    return sessionMapper.toDto(sessions);
+  }
+
+  @Benchmark
+  public void serialize() throws IOException {
+    objectMapper.writeValue(DiscardingOutputStream.INSTANCE, dtos);
+  }
+
+  @Benchmark
+  public void mapAndSerialize() throws IOException {
+    objectMapper.writeValue(DiscardingOutputStream.INSTANCE, sessionMapper.toDto(sessions));
+  }
+
+  private static final class DiscardingOutputStream extends OutputStream {
+    static final DiscardingOutputStream INSTANCE = new DiscardingOutputStream();
+
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
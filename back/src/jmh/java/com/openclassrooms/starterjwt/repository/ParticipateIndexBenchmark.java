@@ -0,0 +1,141 @@
+package com.openclassrooms.starterjwt.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The PARTICIPATE and SESSIONS access paths on 1M participations in an in-memory H2 database, with the schema before
+ * ({@code heap}) and after ({@code keyed}) the V2 migration. Absolute numbers are H2's; the ratio between the two
+ * schemas is what carries over to MySQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParticipateIndexBenchmark {
+  private static final int SESSIONS = 100_000;
+  private static final int USERS = 100_000;
+  private static final int PARTICIPATIONS = 1_000_000;
+  private static final int PAGE_SIZE = 20;
+  private static final long FIRST_DATE = 1700000000000L;
+
+  @Param({"heap", "keyed"})
+  private String schema;
+
+  private Connection connection;
+  private PreparedStatement membership;
+  private PreparedStatement participants;
+  private PreparedStatement sessionsOfUser;
+  private PreparedStatement pageAfter;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:participate-" + schema + ";DB_CLOSE_DELAY=-1");
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE SESSIONS (id INT PRIMARY KEY, name VARCHAR(50), date TIMESTAMP)");
+      if ("keyed".equals(schema)) {
+        statement.execute("CREATE TABLE PARTICIPATE (user_id INT NOT NULL, session_id INT NOT NULL, "
+            + "PRIMARY KEY (session_id, user_id))");
+        statement.execute("CREATE INDEX IDX_PARTICIPATE_USER ON PARTICIPATE (user_id)");
+        statement.execute("CREATE INDEX IDX_SESSIONS_DATE ON SESSIONS (date, id)");
+      } else {
+        statement.execute("CREATE TABLE PARTICIPATE (user_id INT, session_id INT)");
+      }
+
+      // Ten participants per session, every user in about ten sessions
+      statement.execute("INSERT INTO PARTICIPATE (session_id, user_id) SELECT MOD(X, " + SESSIONS + ") + 1, "
+          + "MOD((X / " + SESSIONS + ") * 10007 + MOD(X, " + SESSIONS + "), " + USERS + ") + 1 "
+          + "FROM SYSTEM_RANGE(0, " + (PARTICIPATIONS - 1) + ")");
+    }
+
+    // Sessions one minute apart
+    try (PreparedStatement insert = connection.prepareStatement("INSERT INTO SESSIONS (id, name, date) "
+        + "SELECT X, 'Session ' || X, DATEADD('MINUTE', X, ?) FROM SYSTEM_RANGE(1, " + SESSIONS + ")")) {
+      insert.setTimestamp(1, new Timestamp(FIRST_DATE));
+      insert.executeUpdate();
+    }
+
+    // Same statements as SessionRepository
+    membership = connection.prepareStatement(
+        "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ? AND user_id = ?");
+    participants = connection.prepareStatement("SELECT user_id FROM PARTICIPATE WHERE session_id = ?");
+    sessionsOfUser = connection.prepareStatement("SELECT session_id FROM PARTICIPATE WHERE user_id = ?");
+    pageAfter = connection.prepareStatement("SELECT id, name, date FROM SESSIONS "
+        + "WHERE date >= ? AND (date > ? OR (date = ? AND id > ?)) ORDER BY date ASC, id ASC LIMIT " + PAGE_SIZE);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP ALL OBJECTS");
+    }
+    connection.close();
+  }
+
+  @Benchmark
+  public long membershipCheck() throws SQLException {
+    int sessionId = ThreadLocalRandom.current().nextInt(SESSIONS) + 1;
+    membership.setInt(1, sessionId);
+    membership.setInt(2, (sessionId - 1) % USERS + 1);
+    try (ResultSet resultSet = membership.executeQuery()) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+
+  @Benchmark
+  public int participantsOfSession() throws SQLException {
+    participants.setInt(1, ThreadLocalRandom.current().nextInt(SESSIONS) + 1);
+    return count(participants);
+  }
+
+  @Benchmark
+  public int sessionsOfUser() throws SQLException {
+    sessionsOfUser.setInt(1, ThreadLocalRandom.current().nextInt(USERS) + 1);
+    return count(sessionsOfUser);
+  }
+
+  @Benchmark
+  public int sessionPage() throws SQLException {
+    int afterId = ThreadLocalRandom.current().nextInt(SESSIONS - PAGE_SIZE) + 1;
+    Timestamp afterDate = new Timestamp(FIRST_DATE + afterId * 60000L);
+    pageAfter.setTimestamp(1, afterDate);
+    pageAfter.setTimestamp(2, afterDate);
+    pageAfter.setTimestamp(3, afterDate);
+    pageAfter.setInt(4, afterId);
+    return count(pageAfter);
+  }
+
+  private static int count(PreparedStatement statement) throws SQLException {
+    int rows = 0;
+    try (ResultSet resultSet = statement.executeQuery()) {
+      while (resultSet.next()) {
+        rows++;
+      }
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one login ({@code matches}) and one registration ({@code encode}) for each BCrypt cost factor, to pick
+ * {@code oc.app.bcryptStrength}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+  @Param({"4", "8", "10", "12"})
+  private int strength;
+
+  private BCryptPasswordEncoder encoder;
+  private String hash;
+
+  @Setup
+  public void setUp() {
+    encoder = new BCryptPasswordEncoder(strength);
+    hash = encoder.encode("test!1234");
+  }
+
+  @Benchmark
+  public String encode() {
+    return encoder.encode("test!1234");
+  }
+
+  @Benchmark
+  public boolean matches() {
+    return encoder.matches("test!1234", hash);
+  }
+}
@@ -0,0 +1,75 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One 401 response: {@code perRequestMapper} is the former implementation (a new ObjectMapper and a map per call),
+ * {@code commence} the current one. Both write to a fresh mock response, which costs the same in each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthEntryPointBenchmark {
+  private AuthEntryPointJwt authEntryPoint;
+  private MockHttpServletRequest request;
+  private AuthenticationException authException;
+
+  @Setup
+  public void setUp() {
+    ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(AuthEntryPointJwt.class)).setLevel(Level.OFF);
+    authEntryPoint = new AuthEntryPointJwt(new ObjectMapper());
+    request = new MockHttpServletRequest("GET", "/api/session");
+    request.setServletPath("/api/session");
+    authException = new InsufficientAuthenticationException("Full authentication is required to access this resource");
+  }
+
+  @Benchmark
+  public MockHttpServletResponse commence() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    authEntryPoint.commence(request, response, authException);
+    return response;
+  }
+
+  @Benchmark
+  public MockHttpServletResponse perRequestMapper() throws IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+
+    final Map<String, Object> body = new HashMap<>();
+    body.put("status", HttpServletResponse.SC_UNAUTHORIZED);
+    body.put("error", "Unauthorized");
+    body.put("message", authException.getMessage());
+    body.put("path", request.getServletPath());
+
+    final ObjectMapper mapper = new ObjectMapper();
+    mapper.writeValue(response.getOutputStream(), body);
+    return response;
+  }
+}
@@ -0,0 +1,83 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT work: issuing a token at login, and reading it back in {@link AuthTokenFilter}.
+ * {@code validateJwtToken} hits the claims cache, {@code getUserNameFromJwtToken} always verifies the signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+  private JwtUtils jwtUtils;
+  private AuthTokenFilter authTokenFilter;
+  private Authentication authentication;
+  private MockHttpServletRequest request;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    jwtUtils = new JwtUtils();
+    ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "openclassrooms");
+    ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000);
+    ReflectionTestUtils.setField(jwtUtils, "jwtCacheSize", 10000);
+    ReflectionTestUtils.setField(jwtUtils, "meterRegistry", new SimpleMeterRegistry());
+    jwtUtils.init();
+
+    UserDetailsImpl principal = UserDetailsImpl.builder()
+        .id(1L)
+        .username("yoga@studio.com")
+        .firstName("Admin")
+        .lastName("Admin")
+        .admin(true)
+        .authorities(UserDetailsImpl.authoritiesFor(true))
+        .build();
+    authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    token = jwtUtils.generateJwtToken(authentication);
+
+    authTokenFilter = new AuthTokenFilter();
+    request = new MockHttpServletRequest();
+    request.addHeader("Authorization", "Bearer " + token);
+  }
+
+  @Benchmark
+  public String generateJwtToken() {
+    return jwtUtils.generateJwtToken(authentication);
+  }
+
+  @Benchmark
+  public boolean validateJwtToken() {
+    return jwtUtils.validateJwtToken(token);
+  }
+
+  @Benchmark
+  public String getUserNameFromJwtToken() {
+    return jwtUtils.getUserNameFromJwtToken(token);
+  }
+
+  @Benchmark
+  public String parseJwt() {
+    return authTokenFilter.parseJwt(request);
+  }
+}
@@ -2,12 +2,14 @@ package com.openclassrooms.starterjwt;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
 import io.github.cdimascio.dotenv.Dotenv;
 
 @SpringBootApplication
 @EnableJpaAuditing
+@EnableCaching
 public class SpringBootSecurityJwtApplication {
   public static void main(String[] args) {
     Dotenv dotenv = Dotenv.load();
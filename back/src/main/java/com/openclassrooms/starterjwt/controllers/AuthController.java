@@ -51,12 +51,7 @@ public class AuthController {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = jwtUtils.generateJwtToken(authentication);
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-
-        boolean isAdmin = false;
-        User user = this.userRepository.findByEmail(userDetails.getUsername()).orElse(null);
-        if (user != null) {
-            isAdmin = user.isAdmin();
-        }
+        boolean isAdmin = Boolean.TRUE.equals(userDetails.getAdmin());
 
         return ResponseEntity.ok(new JwtResponse(jwt,
                 userDetails.getId(),
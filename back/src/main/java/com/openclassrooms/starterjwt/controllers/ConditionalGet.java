@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.services.ResourceVersion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Conditional GET helpers for the read endpoints. Callers only query the version when {@link #isConditional} is
+ * true, so requests without validators cost no extra statement.
+ */
+final class ConditionalGet {
+    private ConditionalGet() {
+    }
+
+    static boolean isConditional(HttpServletRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    static boolean isNotModified(HttpServletRequest request, ResourceVersion version) {
+        return version != null
+                && new ServletWebRequest(request)
+                        .checkNotModified(version.getETag(), version.getLastModifiedHeaderMillis());
+    }
+
+    static ResponseEntity<?> notModified(ResourceVersion version) {
+        return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version).build();
+    }
+
+    static ResponseEntity.BodyBuilder ok(ResourceVersion version) {
+        return withValidators(ResponseEntity.ok(), version);
+    }
+
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, ResourceVersion version) {
+        builder.eTag(version.getETag());
+        if (version.getLastModifiedHeaderMillis() >= 0) {
+            builder.lastModified(version.getLastModifiedHeaderMillis());
+        }
+        return builder;
+    }
+}
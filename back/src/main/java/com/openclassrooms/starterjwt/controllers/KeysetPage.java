@@ -0,0 +1,35 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset listing. The endpoints fetch {@code limit + 1} rows: the extra one only tells that a next page
+ * exists, and the cursor of that page is the key of the last row kept.
+ */
+@Getter
+final class KeysetPage<T> {
+    private final List<T> items;
+
+    private final String nextCursor;
+
+    private KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @param rows up to {@code limit + 1} rows in key order
+     * @param cursorOf the encoded key of a row
+     */
+    static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+
+        List<T> items = rows.subList(0, limit);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+}
@@ -0,0 +1,127 @@
+package com.openclassrooms.starterjwt.controllers;
+
+
+import com.openclassrooms.starterjwt.dto.RecurringSessionDto;
+import com.openclassrooms.starterjwt.mapper.RecurringSessionMapper;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.RecurringSession;
+import com.openclassrooms.starterjwt.services.RecurringSessionService;
+import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.UserService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.time.LocalDate;
+
+/**
+ * Recurring session templates. Their occurrences are listed by {@code GET /api/session} (paginated) and
+ * {@code GET /api/session/search} without being stored; joining one stores it as a regular session.
+ */
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/recurring-session")
+@Log4j2
+public class RecurringSessionController {
+    private final RecurringSessionService recurringSessionService;
+    private final RecurringSessionMapper recurringSessionMapper;
+    private final SessionService sessionService;
+    private final SessionMapper sessionMapper;
+    private final UserService userService;
+
+
+    public RecurringSessionController(RecurringSessionService recurringSessionService,
+                                      RecurringSessionMapper recurringSessionMapper,
+                                      SessionService sessionService,
+                                      SessionMapper sessionMapper,
+                                      UserService userService) {
+        this.recurringSessionService = recurringSessionService;
+        this.recurringSessionMapper = recurringSessionMapper;
+        this.sessionService = sessionService;
+        this.sessionMapper = sessionMapper;
+        this.userService = userService;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+        try {
+            RecurringSession recurringSession = this.recurringSessionService.findById(Long.valueOf(id));
+
+            if (recurringSession == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok().body(this.recurringSessionMapper.toDto(recurringSession));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping()
+    public ResponseEntity<?> findAll() {
+        return ResponseEntity.ok().body(this.recurringSessionMapper.toDto(this.recurringSessionService.findAll()));
+    }
+
+    @PostMapping()
+    public ResponseEntity<?> create(@Valid @RequestBody RecurringSessionDto recurringSessionDto) {
+        log.info(recurringSessionDto);
+
+        RecurringSession recurringSession = this.recurringSessionService.create(
+                this.recurringSessionMapper.toEntity(recurringSessionDto));
+
+        return ResponseEntity.ok().body(this.recurringSessionMapper.toDto(recurringSession));
+    }
+
+    /**
+     * Occurrences already joined stay as standalone sessions.
+     */
+    @DeleteMapping("{id}")
+    public ResponseEntity<?> delete(@PathVariable("id") String id) {
+        try {
+            this.recurringSessionService.delete(Long.parseLong(id));
+
+            return ResponseEntity.ok().build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Cancels the occurrence of {@code date}, an ISO day such as {@code 2024-05-14}.
+     */
+    @PostMapping("{id}/exceptions/{date}")
+    public ResponseEntity<?> cancelOccurrence(@PathVariable("id") String id,
+                                              @PathVariable("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            RecurringSession recurringSession = this.recurringSessionService.cancelOccurrence(Long.parseLong(id), date);
+
+            return ResponseEntity.ok().body(this.recurringSessionMapper.toDto(recurringSession));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Joins the occurrence of {@code date}, storing it as a session first if nobody joined it yet. Returns that
+     * session, whose id serves for any later call on it.
+     */
+    @PostMapping("{id}/occurrences/{date}/participate/{userId}")
+    public ResponseEntity<?> participate(@PathVariable("id") String id,
+                                         @PathVariable("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                         @PathVariable("userId") String userId) {
+        try {
+            Long participantId = Long.parseLong(userId);
+            if (this.userService.findById(participantId) == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            Long sessionId = this.sessionService.participateInOccurrence(Long.parseLong(id), date, participantId);
+
+            return ResponseEntity.ok().body(this.sessionMapper.toDto(this.sessionService.getById(sessionId)));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -1,52 +1,224 @@
 package com.openclassrooms.starterjwt.controllers;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.openclassrooms.starterjwt.dto.CountDto;
+import com.openclassrooms.starterjwt.dto.ParticipantIdsDto;
+import com.openclassrooms.starterjwt.dto.ParticipantPageDto;
+import com.openclassrooms.starterjwt.dto.ParticipationResultDto;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPageDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.ResourceVersion;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionSearch;
 import com.openclassrooms.starterjwt.services.SessionService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    static final int STREAM_CHUNK_SIZE = 500;
+    static final int MAX_BATCH_SIZE = 5000;
+
+    private static final String SUMMARY = "summary";
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             UserMapper userMapper,
+                             ObjectMapper objectMapper,
+                             Validator validator) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.userMapper = userMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
     }
 
+    /**
+     * With {@code participants=false} the response has no {@code users} array and the participants are not loaded;
+     * {@code GET /{id}/participants} pages through them instead.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id,
+                                      @RequestParam(value = "participants", defaultValue = "true") boolean participants,
+                                      HttpServletRequest request) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
+            Long sessionId = Long.valueOf(id);
+            if (ConditionalGet.isConditional(request)) {
+                ResourceVersion version = variant(this.sessionService.findVersion(sessionId), participants);
+                if (ConditionalGet.isNotModified(request, version)) {
+                    return ConditionalGet.notModified(version);
+                }
+            }
+
+            Session session = participants
+                    ? this.sessionService.getById(sessionId)
+                    : this.sessionService.getSummaryById(sessionId);
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            ResourceVersion version = variant(
+                    ResourceVersion.ofEntity(session.getId(), session.getUpdatedAt()), participants);
+            return ConditionalGet.ok(version).body(participants
+                    ? this.sessionMapper.toDto(session)
+                    : this.sessionMapper.toSummaryDto(session));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Without {@code cursor} or {@code size} the whole catalog of stored sessions is returned, as before. With either
+     * of them the listing switches to keyset pagination on {@code (date, id)}: the response carries a
+     * {@code nextCursor} to pass back until it is null, and the pages also hold the occurrences of recurring sessions
+     * not joined yet. Only the whole catalog answers conditional requests. {@code participants=false} drops the
+     * {@code users} arrays.
+     */
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<?> findAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "size", required = false) Integer size,
+                                     @RequestParam(value = "participants", defaultValue = "true") boolean participants,
+                                     HttpServletRequest request) {
+        if (cursor == null && size == null) {
+            if (ConditionalGet.isConditional(request)) {
+                ResourceVersion version = variant(this.sessionService.findAllVersion(), participants);
+                if (ConditionalGet.isNotModified(request, version)) {
+                    return ConditionalGet.notModified(version);
+                }
+            }
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+            List<Session> sessions = this.sessionService.findAll(participants);
+
+            ResourceVersion version = variant(
+                    ResourceVersion.ofCollection(sessions, Session::getUpdatedAt), participants);
+            return ConditionalGet.ok(version).body(participants
+                    ? this.sessionMapper.toDto(sessions)
+                    : this.sessionMapper.toSummaryDto(sessions));
+        }
+
+        int limit = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        SessionCursor after = cursor != null ? SessionCursor.decode(cursor) : null;
+        return ResponseEntity.ok().body(this.toPage(
+                this.sessionService.search(new SessionSearch(), after, limit + 1, participants), limit, participants));
+    }
+
+    /**
+     * Filters the catalog on the server: date range ({@code from}, {@code to}), {@code teacherId}, {@code text} in
+     * the name or description and {@code freeSeats}. Results come in keyset pages like the paginated listing,
+     * occurrences of recurring sessions included.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(SessionSearch search,
+                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                    @RequestParam(value = "size", required = false) Integer size,
+                                    @RequestParam(value = "participants", defaultValue = "true") boolean participants) {
+        int limit = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        SessionCursor after = cursor != null ? SessionCursor.decode(cursor) : null;
+        return ResponseEntity.ok().body(
+                this.toPage(this.sessionService.search(search, after, limit + 1, participants), limit, participants));
+    }
+
+    /**
+     * Participants in user id order, in pages of {@code size}: pass {@code nextCursor} back as {@code cursor} until
+     * it is null.
+     */
+    @GetMapping("/{id}/participants")
+    public ResponseEntity<?> findParticipants(@PathVariable("id") String id,
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", required = false) Integer size) {
+        int limit = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            Long after = cursor != null ? Long.valueOf(cursor) : null;
+            List<User> participants = this.sessionService.findParticipants(Long.valueOf(id), after, limit + 1);
+            KeysetPage<User> page = KeysetPage.of(participants, limit, user -> String.valueOf(user.getId()));
+
+            return ResponseEntity.ok().body(
+                    new ParticipantPageDto(this.userMapper.toDto(page.getItems()), page.getNextCursor()));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{id}/participants/count")
+    public ResponseEntity<?> countParticipants(@PathVariable("id") String id) {
+        try {
+            return ResponseEntity.ok().body(new CountDto(this.sessionService.countParticipants(Long.valueOf(id))));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Streams the whole catalog of stored sessions as newline-delimited JSON, reading it in keyset chunks so the
+     * server never holds more than {@link #STREAM_CHUNK_SIZE} sessions at once.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        ObjectWriter writer = this.objectMapper.writerFor(SessionDto.class);
+
+        StreamingResponseBody body = outputStream -> {
+            SessionCursor after = null;
+            List<Session> chunk;
+            do {
+                chunk = this.sessionService.findPage(after, STREAM_CHUNK_SIZE, true);
+                for (Session session : chunk) {
+                    outputStream.write(writer.writeValueAsBytes(this.sessionMapper.toDto(session)));
+                    outputStream.write('\n');
+                }
+                outputStream.flush();
+
+                if (!chunk.isEmpty()) {
+                    after = SessionCursor.of(chunk.get(chunk.size() - 1));
+                }
+            } while (chunk.size() == STREAM_CHUNK_SIZE);
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PostMapping()
@@ -59,6 +231,21 @@ public class SessionController {
         return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
     }
 
+    /**
+     * Creates up to {@link #MAX_BATCH_SIZE} sessions in one transaction from a JSON array of sessions, or from CSV with
+     * the same fields (see {@link SessionCsv}). Nothing is created when a session is invalid; the error names its
+     * position in the body, starting at 1.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> createAll(@RequestBody List<SessionDto> sessionDtos) {
+        return this.importSessions(sessionDtos);
+    }
+
+    @PostMapping(value = "/batch", consumes = SessionCsv.MEDIA_TYPE)
+    public ResponseEntity<?> createAllFromCsv(@RequestBody String csv) {
+        return this.importSessions(SessionCsv.read(csv, this.objectMapper));
+    }
+
     @PutMapping("{id}")
     public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto) {
         try {
@@ -107,4 +294,75 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    /**
+     * Enrolls every user of the body in one transaction and reports the outcome of each distinct id, in request
+     * order. A full session or an unknown user does not fail the request.
+     */
+    @PostMapping("{id}/participate")
+    public ResponseEntity<?> participateAll(@PathVariable("id") String id,
+                                            @Valid @RequestBody ParticipantIdsDto participantIdsDto) {
+        try {
+            return ResponseEntity.ok().body(toResults(
+                    this.sessionService.participateAll(Long.parseLong(id), participantIdsDto.getUserIds())));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("{id}/participate")
+    public ResponseEntity<?> noLongerParticipateAll(@PathVariable("id") String id,
+                                                    @Valid @RequestBody ParticipantIdsDto participantIdsDto) {
+        try {
+            return ResponseEntity.ok().body(toResults(
+                    this.sessionService.noLongerParticipateAll(Long.parseLong(id), participantIdsDto.getUserIds())));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private ResponseEntity<?> importSessions(List<SessionDto> sessionDtos) {
+        if (sessionDtos.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("At most " + MAX_BATCH_SIZE + " sessions per batch");
+        }
+
+        for (int i = 0; i < sessionDtos.size(); i++) {
+            SessionDto sessionDto = sessionDtos.get(i);
+            if (sessionDto == null) {
+                throw new BadRequestException("Session " + (i + 1) + ": missing");
+            }
+
+            Set<ConstraintViolation<SessionDto>> violations = this.validator.validate(sessionDto);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<SessionDto> violation = violations.iterator().next();
+                throw new BadRequestException(
+                        "Session " + (i + 1) + ": " + violation.getPropertyPath() + " " + violation.getMessage());
+            }
+        }
+
+        List<Session> sessions = this.sessionService.createAll(this.sessionMapper.toNewEntities(sessionDtos));
+        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+    }
+
+    /**
+     * @param sessions up to {@code limit + 1} sessions; the extra one only tells that a next page exists
+     */
+    private SessionPageDto toPage(List<Session> sessions, int limit, boolean participants) {
+        KeysetPage<Session> page = KeysetPage.of(sessions, limit, session -> SessionCursor.of(session).encode());
+
+        List<SessionDto> dtos = participants
+                ? this.sessionMapper.toDto(page.getItems())
+                : this.sessionMapper.toSummaryDto(page.getItems());
+        return new SessionPageDto(dtos, page.getNextCursor());
+    }
+
+    private static ResourceVersion variant(ResourceVersion version, boolean participants) {
+        return version == null || participants ? version : version.withVariant(SUMMARY);
+    }
+
+    private static List<ParticipationResultDto> toResults(Map<Long, ParticipationStatus> outcomes) {
+        return outcomes.entrySet().stream()
+                .map(outcome -> new ParticipationResultDto(outcome.getKey(), outcome.getValue()))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,123 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the CSV body of {@code POST /api/session/batch}: a header row naming the columns, then one session per record.
+ * Fields follow RFC 4180 quoting and {@code users} holds participant ids separated by {@code ;}. Values are converted
+ * by Jackson, so dates and numbers are accepted in the same formats as in the JSON body.
+ */
+final class SessionCsv {
+    static final String MEDIA_TYPE = "text/csv";
+
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final String USERS = "users";
+    private static final String ID_SEPARATOR = ";";
+    private static final List<String> COLUMNS = Arrays.asList("name", "date", "teacher_id", "description", "capacity", USERS);
+
+    private SessionCsv() {
+    }
+
+    /**
+     * @throws BadRequestException naming the first malformed record, or an unknown column
+     */
+    static List<SessionDto> read(String csv, ObjectMapper objectMapper) {
+        List<List<String>> records = parse(csv.startsWith(BYTE_ORDER_MARK) ? csv.substring(1) : csv);
+        List<SessionDto> sessionDtos = new ArrayList<>();
+        if (records.isEmpty()) {
+            return sessionDtos;
+        }
+
+        List<String> header = records.get(0).stream().map(String::trim).collect(Collectors.toList());
+        for (String column : header) {
+            if (!COLUMNS.contains(column)) {
+                throw new BadRequestException("Unknown column: " + column);
+            }
+        }
+
+        for (int index = 1; index < records.size(); index++) {
+            List<String> record = records.get(index);
+            if (record.size() != header.size()) {
+                throw new BadRequestException("Session " + index + ": expected " + header.size() + " fields");
+            }
+
+            Map<String, Object> fields = new HashMap<>();
+            for (int column = 0; column < header.size(); column++) {
+                String value = record.get(column).trim();
+                if (!value.isEmpty()) {
+                    fields.put(header.get(column), USERS.equals(header.get(column))
+                            ? Arrays.stream(value.split(ID_SEPARATOR)).map(String::trim).collect(Collectors.toList())
+                            : value);
+                }
+            }
+
+            try {
+                sessionDtos.add(objectMapper.convertValue(fields, SessionDto.class));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Session " + index + ": invalid value");
+            }
+        }
+
+        return sessionDtos;
+    }
+
+    private static List<List<String>> parse(String csv) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c != QUOTE) {
+                    field.append(c);
+                } else if (i + 1 < csv.length() && csv.charAt(i + 1) == QUOTE) {
+                    field.append(QUOTE);
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == QUOTE) {
+                quoted = true;
+            } else if (c == SEPARATOR) {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < csv.length() && csv.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                record.add(field.toString());
+                field.setLength(0);
+                // Blank lines, as many exporters write one at the end, hold no record
+                if (record.size() > 1 || !record.get(0).isEmpty()) {
+                    records.add(record);
+                }
+                record = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new BadRequestException("Unterminated quoted field");
+        }
+        if (field.length() > 0 || !record.isEmpty()) {
+            record.add(field.toString());
+            records.add(record);
+        }
+
+        return records;
+    }
+}
@@ -2,9 +2,12 @@ package com.openclassrooms.starterjwt.controllers;
 
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.ResourceVersion;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -37,9 +40,17 @@ public class TeacherController {
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(HttpServletRequest request) {
+        if (ConditionalGet.isConditional(request)) {
+            ResourceVersion version = this.teacherService.findAllVersion();
+            if (ConditionalGet.isNotModified(request, version)) {
+                return ConditionalGet.notModified(version);
+            }
+        }
+
         List<Teacher> teachers = this.teacherService.findAll();
 
-        return ResponseEntity.ok().body(this.teacherMapper.toDto(teachers));
+        ResourceVersion version = ResourceVersion.ofCollection(teachers, Teacher::getUpdatedAt);
+        return ConditionalGet.ok(version).body(this.teacherMapper.toDto(teachers));
     }
 }
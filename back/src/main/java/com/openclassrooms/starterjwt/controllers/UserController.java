@@ -1,7 +1,13 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.dto.SessionPageDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
+import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,12 +23,18 @@ import java.util.Objects;
 public class UserController {
     private final UserMapper userMapper;
     private final UserService userService;
+    private final SessionService sessionService;
+    private final SessionMapper sessionMapper;
 
 
     public UserController(UserService userService,
-                             UserMapper userMapper) {
+                             UserMapper userMapper,
+                             SessionService sessionService,
+                             SessionMapper sessionMapper) {
         this.userMapper = userMapper;
         this.userService = userService;
+        this.sessionService = sessionService;
+        this.sessionMapper = sessionMapper;
     }
 
     @GetMapping("/{id}")
@@ -61,4 +73,48 @@ public class UserController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    /**
+     * Sessions attended by the user, in keyset pages ordered by {@code (date, id)} like {@code GET /api/session}.
+     * The sessions come without their {@code users} arrays.
+     */
+    @GetMapping("/{id}/sessions")
+    public ResponseEntity<?> findSessions(@PathVariable("id") String id,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "size", required = false) Integer size) {
+        try {
+            return this.sessionsOf(Long.valueOf(id), cursor, size);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Same as {@code GET /{id}/sessions} for the authenticated user.
+     */
+    @GetMapping("/me/sessions")
+    public ResponseEntity<?> findMySessions(@RequestParam(value = "cursor", required = false) String cursor,
+                                            @RequestParam(value = "size", required = false) Integer size) {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        if (!(principal instanceof UserDetailsImpl)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return this.sessionsOf(((UserDetailsImpl) principal).getId(), cursor, size);
+    }
+
+    private ResponseEntity<?> sessionsOf(Long userId, String cursor, Integer size) {
+        int limit = size != null ? size : SessionController.DEFAULT_PAGE_SIZE;
+        if (limit < 1 || limit > SessionController.MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        SessionCursor after = cursor != null ? SessionCursor.decode(cursor) : null;
+        KeysetPage<Session> page = KeysetPage.of(this.sessionService.findPageOfUser(userId, after, limit + 1), limit,
+                session -> SessionCursor.of(session).encode());
+
+        return ResponseEntity.ok().body(
+                new SessionPageDto(this.sessionMapper.toSummaryDto(page.getItems()), page.getNextCursor()));
+    }
 }
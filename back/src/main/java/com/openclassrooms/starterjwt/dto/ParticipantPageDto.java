@@ -0,0 +1,16 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticipantPageDto {
+    private List<UserDto> participants;
+
+    private String nextCursor;
+}
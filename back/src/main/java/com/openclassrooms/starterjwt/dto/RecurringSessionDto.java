@@ -0,0 +1,55 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringSessionDto {
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    private Long teacher_id;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @Min(1)
+    private Integer capacity;
+
+    @NotNull
+    private Date startsAt;
+
+    private LocalDate endsOn;
+
+    /**
+     * 1 (the default) for a weekly class, 2 for every other week...
+     */
+    @Min(1)
+    private Integer intervalWeeks;
+
+    /**
+     * Cancelled days.
+     */
+    private Set<LocalDate> exceptions;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -1,9 +1,11 @@
 package com.openclassrooms.starterjwt.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -31,9 +33,23 @@ public class SessionDto {
     @Size(max = 2500)
     private String description;
 
+    /**
+     * Ids of the participants, omitted from responses requested with {@code participants=false}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<Long> users;
 
+    @Min(1)
+    private Integer capacity;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
+
+    /**
+     * Set on the occurrences of a recurring session. Those not joined yet have no {@code id}: they are joined through
+     * {@code POST /api/recurring-session/{id}/occurrences/{date}/participate/{userId}}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long recurringSessionId;
 }
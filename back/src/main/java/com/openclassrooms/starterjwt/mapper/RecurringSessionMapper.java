@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.RecurringSessionDto;
+import com.openclassrooms.starterjwt.models.RecurringSession;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Mappings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Optional;
+
+@Component
+@Mapper(componentModel = "spring", imports = {HashSet.class, Optional.class})
+public abstract class RecurringSessionMapper implements EntityMapper<RecurringSessionDto, RecurringSession> {
+
+    @Autowired
+    TeacherService teacherService;
+
+    @Mappings({
+            @Mapping(target = "teacher", expression = "java(recurringSessionDto.getTeacher_id() != null ? this.teacherService.findById(recurringSessionDto.getTeacher_id()) : null)"),
+            @Mapping(target = "exceptions", expression = "java(new HashSet<>(Optional.ofNullable(recurringSessionDto.getExceptions()).orElseGet(HashSet::new)))"),
+    })
+    public abstract RecurringSession toEntity(RecurringSessionDto recurringSessionDto);
+
+    @Mappings({
+            @Mapping(source = "recurringSession.teacher.id", target = "teacher_id"),
+    })
+    public abstract RecurringSessionDto toDto(RecurringSession recurringSession);
+}
@@ -2,18 +2,26 @@ package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
+import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -28,15 +36,73 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
     @Mappings({
             @Mapping(source = "description", target = "description"),
             @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "users", expression = "java(this.userService.findAllByIds(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList)))"),
+            @Mapping(target = "recurringSessionId", ignore = true),
     })
     public abstract Session toEntity(SessionDto sessionDto);
 
 
+    /**
+     * Same as {@link #toEntity(SessionDto)} for a session to insert: the id and timestamps of the DTO are ignored, and
+     * {@code teacher} and {@code users} are left to the caller.
+     */
+    @Named("new")
+    @Mappings({
+            @Mapping(target = "id", ignore = true),
+            @Mapping(target = "createdAt", ignore = true),
+            @Mapping(target = "updatedAt", ignore = true),
+            @Mapping(target = "teacher", ignore = true),
+            @Mapping(target = "users", ignore = true),
+            @Mapping(target = "recurringSessionId", ignore = true),
+    })
+    public abstract Session toNewEntity(SessionDto sessionDto);
+
+    /**
+     * Sessions to insert. Each distinct teacher is looked up once and all the users with a single query, instead of
+     * once per session.
+     */
+    public List<Session> toNewEntities(List<SessionDto> sessionDtos) {
+        Map<Long, Teacher> teachersById = new HashMap<>();
+        sessionDtos.stream()
+                .map(SessionDto::getTeacher_id)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(teacherId -> teachersById.put(teacherId, this.teacherService.findById(teacherId)));
+
+        Map<Long, User> usersById = this.userService.findAllByIds(sessionDtos.stream()
+                        .flatMap(sessionDto -> Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream())
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return sessionDtos.stream().map(sessionDto -> {
+            Session session = this.toNewEntity(sessionDto);
+            session.setTeacher(sessionDto.getTeacher_id() != null ? teachersById.get(sessionDto.getTeacher_id()) : null);
+            session.setUsers(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream()
+                    .distinct()
+                    .map(usersById::get)
+                    .collect(Collectors.toList()));
+            return session;
+        }).collect(Collectors.toList());
+    }
+
     @Mappings({
             @Mapping(source = "description", target = "description"),
             @Mapping(source = "session.teacher.id", target = "teacher_id"),
             @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
     })
     public abstract SessionDto toDto(Session session);
+
+    /**
+     * Same as {@link #toDto(Session)} without {@code users}, which is left null and never initialized.
+     */
+    @Named("summary")
+    @Mappings({
+            @Mapping(source = "session.teacher.id", target = "teacher_id"),
+            @Mapping(target = "users", ignore = true),
+    })
+    public abstract SessionDto toSummaryDto(Session session);
+
+    @IterableMapping(qualifiedByName = "summary")
+    public abstract List<SessionDto> toSummaryDto(List<Session> sessions);
 }
@@ -0,0 +1,88 @@
+package com.openclassrooms.starterjwt.models;
+
+
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * A class given every {@code intervalWeeks} weeks, on the weekday and at the local time of {@code startsAt}, until
+ * {@code endsOn} when set. Its occurrences are computed on read and only stored in {@code SESSIONS} once joined.
+ */
+@Entity
+@Table(name = "RECURRING_SESSIONS")
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class RecurringSession {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @OneToOne
+    @JoinColumn(name = "teacher_id", referencedColumnName = "id")
+    private Teacher teacher;
+
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * The first occurrence.
+     */
+    @NotNull
+    @Column(name = "starts_at")
+    private Date startsAt;
+
+    /**
+     * Last day with an occurrence, or null for an open-ended recurrence.
+     */
+    @Column(name = "ends_on")
+    private LocalDate endsOn;
+
+    @NotNull
+    @Min(1)
+    @Column(name = "interval_weeks")
+    private Integer intervalWeeks;
+
+    /**
+     * Days whose occurrence is cancelled.
+     */
+    @ElementCollection
+    @CollectionTable(name = "RECURRING_SESSION_EXCEPTIONS", joinColumns = @JoinColumn(name = "recurring_session_id"))
+    @Column(name = "occurrence_date")
+    @ToString.Exclude
+    private Set<LocalDate> exceptions;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -3,11 +3,16 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -16,6 +21,8 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "session")
 @Table(name = "SESSIONS")
 @EntityListeners(AuditingEntityListener.class)
 @Data
@@ -26,8 +33,18 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 public class Session {
+    /**
+     * Taken 50 at a time from the {@code SESSIONS_SEQ} table (pooled-lo), so that inserts can be batched: an identity
+     * column needs one round trip per row to learn its id. A table rather than a sequence because MySQL has none.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "session_id")
+    @GenericGenerator(name = "session_id", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "SESSIONS_SEQ"),
+            @Parameter(name = "force_table_use", value = "true"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @NotBlank
@@ -45,13 +62,29 @@ public class Session {
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "session-users")
+    @ToString.Exclude
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
-            inverseJoinColumns = @JoinColumn( name = "user_id" ) )
+            inverseJoinColumns = @JoinColumn( name = "user_id" ),
+            uniqueConstraints = @UniqueConstraint(columnNames = {"session_id", "user_id"}) )
     private List<User> users;
 
+    /**
+     * Maximum number of participants, or null for an unlimited session.
+     */
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * Seats taken, maintained only by the conditional updates in {@code SessionRepository} so that reservations stay
+     * correct under concurrent joins.
+     */
+    @Column(name = "participant_count", insertable = false, updatable = false)
+    private Integer participantCount;
+
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -59,4 +92,10 @@ public class Session {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    /**
+     * The {@link RecurringSession} this session is an occurrence of, set once when the occurrence is materialized.
+     */
+    @Column(name = "recurring_session_id", updatable = false)
+    private Long recurringSessionId;
 }
@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row count and latest {@code updated_at} of a table, read with a single aggregate query.
+ */
+public interface ChangeSummary {
+    Long getCount();
+
+    LocalDateTime getLastModified();
+}
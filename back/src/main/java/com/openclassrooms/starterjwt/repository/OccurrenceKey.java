@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.Date;
+
+/**
+ * Identifies an occurrence of a recurring session that is stored in {@code SESSIONS}.
+ */
+public interface OccurrenceKey {
+    Long getRecurringSessionId();
+
+    Date getDate();
+}
@@ -0,0 +1,38 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.RecurringSession;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RecurringSessionRepository extends JpaRepository<RecurringSession, Long> {
+    @EntityGraph(attributePaths = {"teacher", "exceptions"})
+    @Query("SELECT r FROM RecurringSession r WHERE r.id = :id")
+    Optional<RecurringSession> findWithExceptionsById(@Param("id") Long id);
+
+    /**
+     * Locks the template row until the end of the transaction, so that its occurrences are stored, joined and
+     * cancelled one transaction at a time.
+     */
+    @Query(value = "SELECT id FROM RECURRING_SESSIONS WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = {"teacher", "exceptions"})
+    @Query("SELECT DISTINCT r FROM RecurringSession r ORDER BY r.id ASC")
+    List<RecurringSession> findAllWithExceptions();
+
+    /**
+     * Templates that still have occurrences on or after {@code day}, with their teacher and exceptions in one
+     * statement.
+     */
+    @EntityGraph(attributePaths = {"teacher", "exceptions"})
+    @Query("SELECT DISTINCT r FROM RecurringSession r WHERE r.endsOn IS NULL OR r.endsOn >= :day")
+    List<RecurringSession> findActiveOn(@Param("day") LocalDate day);
+}
@@ -1,9 +1,210 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface SessionRepository  extends JpaRepository<Session, Long> {
+public interface SessionRepository  extends JpaRepository<Session, Long>, SessionSearchRepository {
+    /**
+     * Native updates declare the tables they write so that Hibernate evicts only the second-level cache regions mapped
+     * to them; a native update without query spaces evicts every entity and collection region.
+     */
+    String NATIVE_SPACES = "org.hibernate.query.native.spaces";
+
+    /**
+     * Detail and participation paths: the session, its teacher and its participants in one statement.
+     */
+    @EntityGraph(attributePaths = {"teacher", "users"})
+    @Query("SELECT s FROM Session s WHERE s.id = :id")
+    Optional<Session> findWithUsersById(@Param("id") Long id);
+
+    /**
+     * Full listing: every session with its teacher and participants in one statement.
+     */
+    @EntityGraph(attributePaths = {"teacher", "users"})
+    @Query("SELECT DISTINCT s FROM Session s")
+    List<Session> findAllWithUsers();
+
+    /**
+     * Detail without participants: the session and its teacher.
+     */
+    @EntityGraph(attributePaths = {"teacher"})
+    @Query("SELECT s FROM Session s WHERE s.id = :id")
+    Optional<Session> findWithTeacherById(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = {"teacher"})
+    @Query("SELECT s FROM Session s")
+    List<Session> findAllWithTeacher();
+
+    @EntityGraph(attributePaths = {"teacher"})
+    @Query("SELECT s FROM Session s ORDER BY s.date ASC, s.id ASC")
+    List<Session> findFirstPage(Pageable pageable);
+
+    /**
+     * The redundant {@code s.date >= :date} gives the optimizer a range on {@code IDX_SESSIONS_DATE}, which the
+     * disjunction alone does not.
+     */
+    @EntityGraph(attributePaths = {"teacher"})
+    @Query("SELECT s FROM Session s WHERE s.date >= :date AND (s.date > :date OR (s.date = :date AND s.id > :id)) "
+            + "ORDER BY s.date ASC, s.id ASC")
+    List<Session> findPageAfter(@Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Sessions attended by a user, in {@code (date, id)} order: a range of {@code IDX_PARTICIPATE_USER} joined to
+     * {@code SESSIONS} by primary key.
+     */
+    @EntityGraph(attributePaths = {"teacher"})
+    @Query("SELECT s FROM Session s JOIN s.users u WHERE u.id = :userId ORDER BY s.date ASC, s.id ASC")
+    List<Session> findFirstPageOfUser(@Param("userId") Long userId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"teacher"})
+    @Query("SELECT s FROM Session s JOIN s.users u WHERE u.id = :userId "
+            + "AND s.date >= :date AND (s.date > :date OR (s.date = :date AND s.id > :id)) "
+            + "ORDER BY s.date ASC, s.id ASC")
+    List<Session> findPageOfUserAfter(@Param("userId") Long userId, @Param("date") Date date, @Param("id") Long id,
+                                      Pageable pageable);
+
+    /**
+     * Initializes the participants of already loaded sessions with a single statement. Paginated queries cannot
+     * fetch-join a collection without paging in memory, so pages are read first and their participants second.
+     */
+    @EntityGraph(attributePaths = {"users"})
+    @Query("SELECT DISTINCT s FROM Session s WHERE s.id IN :ids")
+    List<Session> fetchUsers(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Participants of a session after the user id {@code after}, in id order: a range of the {@code PARTICIPATE}
+     * primary key.
+     */
+    @Query("SELECT u FROM Session s JOIN s.users u WHERE s.id = :sessionId AND u.id > :after "
+            + "ORDER BY u.id ASC")
+    List<User> findParticipants(@Param("sessionId") Long sessionId, @Param("after") Long after, Pageable pageable);
+
+    @Query("SELECT s.participantCount FROM Session s WHERE s.id = :id")
+    Optional<Integer> findParticipantCountById(@Param("id") Long id);
+
+    @Query("SELECT s.updatedAt FROM Session s WHERE s.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+
+    @Query("SELECT COUNT(s) AS count, MAX(s.updatedAt) AS lastModified FROM Session s")
+    ChangeSummary summarize();
+
+    @Query(value = "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    long countParticipation(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Clears the persistence context afterwards: a session loaded earlier in the request, such as a freshly stored
+     * occurrence, would otherwise be read back without its new participant and seat.
+     */
+    @Modifying(clearAutomatically = true)
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "PARTICIPATE"))
+    @Query(value = "INSERT INTO PARTICIPATE (session_id, user_id) VALUES (:sessionId, :userId)", nativeQuery = true)
+    int addParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "PARTICIPATE"))
+    @Query(value = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int removeParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Locks the session row until the end of the transaction and returns its free seats ({@code Integer.MAX_VALUE}
+     * for an unlimited session). Bulk enrollments take this lock so that they can compare the whole batch with the
+     * seats left; joins of other sessions are not blocked.
+     */
+    @Query(value = "SELECT COALESCE(capacity - participant_count, 2147483647) FROM SESSIONS WHERE id = :id FOR UPDATE",
+            nativeQuery = true)
+    Optional<Long> lockFreeSeats(@Param("id") Long id);
+
+    /**
+     * Which of {@code userIds} already participate in the session: a lookup of the {@code PARTICIPATE} primary key.
+     */
+    @Query("SELECT u.id FROM Session s JOIN s.users u WHERE s.id = :sessionId AND u.id IN :userIds")
+    List<Long> findParticipantIds(@Param("sessionId") Long sessionId, @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Adds every user of {@code userIds} with a single {@code INSERT ... SELECT}. The ids must exist and must not
+     * participate yet.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "PARTICIPATE"))
+    @Query(value = "INSERT INTO PARTICIPATE (session_id, user_id) SELECT s.id, u.id FROM SESSIONS s, USERS u "
+            + "WHERE s.id = :sessionId AND u.id IN :userIds", nativeQuery = true)
+    int addParticipants(@Param("sessionId") Long sessionId, @Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "PARTICIPATE"))
+    @Query(value = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id IN :userIds", nativeQuery = true)
+    int removeParticipants(@Param("sessionId") Long sessionId, @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Takes one seat if the session still has room. The row lock of the update serializes concurrent joins of the
+     * same session only, so no global lock is needed.
+     *
+     * @return 1 when a seat was taken, 0 when the session is full or does not exist
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "SESSIONS"))
+    @Query(value = "UPDATE SESSIONS SET participant_count = participant_count + 1, updated_at = CURRENT_TIMESTAMP(3) "
+            + "WHERE id = :id AND (capacity IS NULL OR participant_count < capacity)", nativeQuery = true)
+    int reserveSeat(@Param("id") Long id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "SESSIONS"))
+    @Query(value = "UPDATE SESSIONS SET participant_count = participant_count - 1, updated_at = CURRENT_TIMESTAMP(3) "
+            + "WHERE id = :id AND participant_count > 0", nativeQuery = true)
+    int releaseSeat(@Param("id") Long id);
+
+    /**
+     * Recounts the seats after the participant list was written as a whole (create and update). Also bumps
+     * {@code updated_at}, since a change of the participants alone does not make Hibernate update the row.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "SESSIONS"))
+    @Query(value = "UPDATE SESSIONS SET participant_count = "
+            + "(SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = :id), updated_at = CURRENT_TIMESTAMP(3) "
+            + "WHERE id = :id", nativeQuery = true)
+    int refreshParticipantCount(@Param("id") Long id);
+
+    /**
+     * Same as {@link #refreshParticipantCount(Long)} for many sessions in one statement.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "SESSIONS"))
+    @Query(value = "UPDATE SESSIONS s SET participant_count = "
+            + "(SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = s.id), updated_at = CURRENT_TIMESTAMP(3) "
+            + "WHERE s.id IN :ids", nativeQuery = true)
+    int refreshParticipantCounts(@Param("ids") Collection<Long> ids);
+
+    Optional<Session> findByRecurringSessionIdAndDate(Long recurringSessionId, Date date);
+
+    /**
+     * Occurrences of the given recurring sessions stored between {@code from} and {@code to}, both included.
+     */
+    @Query("SELECT s.recurringSessionId AS recurringSessionId, s.date AS date FROM Session s "
+            + "WHERE s.recurringSessionId IN :recurringSessionIds AND s.date >= :from AND s.date <= :to")
+    List<OccurrenceKey> findOccurrenceKeys(@Param("recurringSessionIds") Collection<Long> recurringSessionIds,
+                                           @Param("from") Date from, @Param("to") Date to);
+
+    /**
+     * Turns the stored occurrences of a recurring session into standalone sessions, before the template is deleted.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "SESSIONS"))
+    @Query(value = "UPDATE SESSIONS SET recurring_session_id = NULL WHERE recurring_session_id = :id", nativeQuery = true)
+    int detachOccurrences(@Param("id") Long id);
 }
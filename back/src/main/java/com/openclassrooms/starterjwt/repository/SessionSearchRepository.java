@@ -0,0 +1,14 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface SessionSearchRepository {
+    /**
+     * Returns at most {@code limit} sessions matching {@code specification}, ordered by {@code (date, id)} and with
+     * their teacher, without the count query of a {@code Page}.
+     */
+    List<Session> search(Specification<Session> specification, int limit);
+}
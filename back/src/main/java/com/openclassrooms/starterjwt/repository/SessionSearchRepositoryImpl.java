@@ -0,0 +1,39 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+class SessionSearchRepositoryImpl implements SessionSearchRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Session> search(Specification<Session> specification, int limit) {
+        CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Session> query = builder.createQuery(Session.class);
+        Root<Session> session = query.from(Session.class);
+
+        Predicate predicate = specification == null ? null : specification.toPredicate(session, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(builder.asc(session.get("date")), builder.asc(session.get("id")));
+
+        EntityGraph<Session> graph = this.entityManager.createEntityGraph(Session.class);
+        graph.addAttributeNodes("teacher");
+
+        return this.entityManager.createQuery(query)
+                .setHint("javax.persistence.fetchgraph", graph)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
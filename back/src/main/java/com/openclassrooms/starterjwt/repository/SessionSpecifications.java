@@ -0,0 +1,102 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Filters of the session search. Every factory returns null for a missing criterion, which
+ * {@link Specification#and(Specification)} ignores.
+ */
+public final class SessionSpecifications {
+    private static final char LIKE_ESCAPE = '\\';
+
+    private SessionSpecifications() {
+    }
+
+    /**
+     * Sessions on or after the first instant of {@code from}.
+     */
+    public static Specification<Session> onOrAfter(LocalDate from) {
+        if (from == null) {
+            return null;
+        }
+
+        Date start = startOf(from);
+        return (session, query, builder) -> builder.greaterThanOrEqualTo(session.get("date"), start);
+    }
+
+    /**
+     * Sessions on or before the last instant of {@code to}.
+     */
+    public static Specification<Session> onOrBefore(LocalDate to) {
+        if (to == null) {
+            return null;
+        }
+
+        Date end = startOf(to.plusDays(1));
+        return (session, query, builder) -> builder.lessThan(session.get("date"), end);
+    }
+
+    public static Specification<Session> taughtBy(Long teacherId) {
+        if (teacherId == null) {
+            return null;
+        }
+
+        return (session, query, builder) -> builder.equal(session.get("teacher").get("id"), teacherId);
+    }
+
+    /**
+     * Case-insensitive substring match on the name or the description. {@code %} and {@code _} match literally.
+     */
+    public static Specification<Session> mentioning(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
+
+        String pattern = "%" + escapeLike(text.trim().toLowerCase()) + "%";
+        return (session, query, builder) -> builder.or(
+                builder.like(builder.lower(session.get("name")), pattern, LIKE_ESCAPE),
+                builder.like(builder.lower(session.get("description")), pattern, LIKE_ESCAPE));
+    }
+
+    /**
+     * Sessions without a capacity or with fewer participants than their capacity.
+     */
+    public static Specification<Session> withFreeSeats(Boolean freeSeats) {
+        if (!Boolean.TRUE.equals(freeSeats)) {
+            return null;
+        }
+
+        return (session, query, builder) -> builder.or(
+                builder.isNull(session.get("capacity")),
+                builder.lessThan(session.get("participantCount"), session.get("capacity")));
+    }
+
+    /**
+     * Keyset position in the {@code (date, id)} order, with the same redundant range as
+     * {@link SessionRepository#findPageAfter}.
+     */
+    public static Specification<Session> after(Date date, Long id) {
+        if (date == null || id == null) {
+            return null;
+        }
+
+        return (session, query, builder) -> builder.and(
+                builder.greaterThanOrEqualTo(session.get("date"), date),
+                builder.or(
+                        builder.greaterThan(session.get("date"), date),
+                        builder.and(builder.equal(session.get("date"), date), builder.greaterThan(session.get("id"), id))));
+    }
+
+    private static Date startOf(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,8 +1,13 @@
 package com.openclassrooms.starterjwt.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.openclassrooms.starterjwt.models.User;
@@ -12,4 +17,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByEmail(String email);
 
   Boolean existsByEmail(String email); 
+
+  @Modifying
+  @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+  int updatePassword(@Param("email") String email, @Param("password") String password);
+
+  @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+  List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,6 +1,10 @@
 package com.openclassrooms.starterjwt.security;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,10 +14,12 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.openclassrooms.starterjwt.security.crypto.AdaptiveBCryptPasswordEncoder;
+import com.openclassrooms.starterjwt.security.crypto.BoundedPasswordEncoder;
 import com.openclassrooms.starterjwt.security.jwt.AuthEntryPointJwt;
 import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
@@ -25,15 +31,29 @@ import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
     // jsr250Enabled = true,
     prePostEnabled = true)
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
+  /** Reachable without a token. The JWT filter skips them too. */
+  static final String[] PUBLIC_PATHS = {"/api/auth/**"};
+
   @Autowired
   UserDetailsServiceImpl userDetailsService;
 
   @Autowired
   private AuthEntryPointJwt unauthorizedHandler;
 
+  @Value("${oc.app.bcryptStrength}")
+  private int bcryptStrength;
+
+  @Value("${oc.app.passwordHashThreads}")
+  private int passwordHashThreads;
+
+  @Value("${oc.app.passwordHashQueueSize}")
+  private int passwordHashQueueSize;
+
   @Bean
   public AuthTokenFilter authenticationJwtTokenFilter() {
-    return new AuthTokenFilter();
+    AuthTokenFilter filter = new AuthTokenFilter();
+    filter.setPublicPaths(PUBLIC_PATHS);
+    return filter;
   }
 
   @Override
@@ -47,9 +67,20 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     return super.authenticationManagerBean();
   }
 
+  /**
+   * New hashes are written as {@code {bcrypt}} at the configured cost. Hashes stored before the prefix existed are
+   * matched as bcrypt, and every hash with another id or cost is rewritten on the next successful login.
+   */
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    AdaptiveBCryptPasswordEncoder bcrypt = new AdaptiveBCryptPasswordEncoder(bcryptStrength);
+    Map<String, PasswordEncoder> encoders = new HashMap<>();
+    encoders.put("bcrypt", bcrypt);
+
+    DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", encoders);
+    delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+    return new BoundedPasswordEncoder(delegating, passwordHashThreads, passwordHashQueueSize);
   }
 
   @Override
@@ -57,7 +88,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     http.cors().and().csrf().disable()
       .exceptionHandling().authenticationEntryPoint(unauthorizedHandler).and()
       .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
-      .authorizeRequests().antMatchers("/api/auth/**").permitAll()
+      .authorizeRequests().antMatchers(PUBLIC_PATHS).permitAll()
       .antMatchers("/api/**").authenticated()
       .anyRequest().authenticated();
 
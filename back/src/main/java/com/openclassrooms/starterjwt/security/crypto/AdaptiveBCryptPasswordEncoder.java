@@ -0,0 +1,35 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder that asks for a rehash whenever the stored cost differs from the configured one, in both
+ * directions, so lowering {@code oc.app.bcryptStrength} also takes effect on the next login of every user.
+ */
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+  private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2(a|y|b)?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+  private final int strength;
+
+  public AdaptiveBCryptPasswordEncoder(int strength) {
+    super(strength);
+    this.strength = strength;
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    if (encodedPassword == null) {
+      return false;
+    }
+
+    Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+    if (!matcher.matches()) {
+      return false;
+    }
+
+    return Integer.parseInt(matcher.group(2)) != strength;
+  }
+}
@@ -0,0 +1,72 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+
+/**
+ * Runs the hashing of the delegate on a fixed pool with a bounded queue. A login flood can then use at most
+ * {@code threads} cores, and requests beyond the queue are answered with 503 instead of piling up on request threads.
+ * A request thread still waits while its hash is queued, so {@code threads + queueSize} must stay well under the
+ * container's worker threads ({@code server.tomcat.threads.max}, 200 by default) for other endpoints to keep a share.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+  private final PasswordEncoder delegate;
+
+  private final ThreadPoolExecutor executor;
+
+  public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueSize) {
+    AtomicInteger threadCount = new AtomicInteger();
+    this.delegate = delegate;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueSize),
+        runnable -> {
+          Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return submit(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return submit(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private <T> T submit(Callable<T> task) {
+    try {
+      return executor.submit(task).get();
+    } catch (RejectedExecutionException e) {
+      throw new ServiceUnavailableException();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
@@ -1,8 +1,7 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -15,6 +14,7 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Component
@@ -22,22 +22,35 @@ public class AuthEntryPointJwt implements AuthenticationEntryPoint {
 
   private static final Logger logger = LoggerFactory.getLogger(AuthEntryPointJwt.class);
 
+  private final ObjectMapper objectMapper;
+
+  private final LogRateLimiter logLimiter = new LogRateLimiter(10, TimeUnit.SECONDS);
+
+  public AuthEntryPointJwt(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
   @Override
   public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException)
       throws IOException, ServletException {
-    logger.error("Unauthorized error: {}", authException.getMessage());
+    long suppressed = logLimiter.tryAcquire();
+    if (suppressed >= 0) {
+      logger.warn("Unauthorized error: {}{}", authException.getMessage(),
+          LogRateLimiter.suppressedSuffix(suppressed, "responses"));
+    }
 
     response.setContentType(MediaType.APPLICATION_JSON_VALUE);
     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
 
-    final Map<String, Object> body = new HashMap<>();
-    body.put("status", HttpServletResponse.SC_UNAUTHORIZED);
-    body.put("error", "Unauthorized");
-    body.put("message", authException.getMessage());
-    body.put("path", request.getServletPath());
-
-    final ObjectMapper mapper = new ObjectMapper();
-    mapper.writeValue(response.getOutputStream(), body);
+    // 401 is the most frequent response: stream the four fields instead of building a map for each one
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+      generator.writeStartObject();
+      generator.writeNumberField("status", HttpServletResponse.SC_UNAUTHORIZED);
+      generator.writeStringField("error", "Unauthorized");
+      generator.writeStringField("message", authException.getMessage());
+      generator.writeStringField("path", request.getServletPath());
+      generator.writeEndObject();
+    }
   }
 
 }
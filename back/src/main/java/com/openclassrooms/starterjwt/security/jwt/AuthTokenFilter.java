@@ -1,6 +1,9 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -10,15 +13,23 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
+
 public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private JwtUtils jwtUtils;
@@ -26,17 +37,47 @@ public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired
+  private UserRepository userRepository;
+
+  /** Builds the principal from the token claims instead of loading the user on every request. */
+  @Value("${oc.app.jwtStatelessPrincipal}")
+  private boolean statelessPrincipal;
+
+  /** In stateless mode, rejects tokens of users that no longer exist with a primary key lookup. */
+  @Value("${oc.app.jwtRevocationCheck}")
+  private boolean revocationCheck;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
+  private final LogRateLimiter failureLogLimiter = new LogRateLimiter(10, TimeUnit.SECONDS);
+
+  private final LogRateLimiter revocationLogLimiter = new LogRateLimiter(10, TimeUnit.SECONDS);
+
+  private RequestMatcher publicPaths = request -> false;
+
+  /**
+   * Paths permitted to everyone: login and register floods then cost no token parsing nor user lookup.
+   */
+  public void setPublicPaths(String... patterns) {
+    this.publicPaths = new OrRequestMatcher(Stream.of(patterns)
+        .map(AntPathRequestMatcher::new)
+        .collect(Collectors.toList()));
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return publicPaths.matches(request);
+  }
+
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      Claims claims = jwt != null ? jwtUtils.parseJwtToken(jwt) : null;
+      UserDetails userDetails = claims != null ? loadUserDetails(claims) : null;
+      if (userDetails != null) {
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -47,13 +88,36 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         SecurityContextHolder.getContext().setAuthentication(authentication);
       }
     } catch (Exception e) {
-      logger.error("Cannot set user authentication: {}", e);
+      long suppressed = failureLogLimiter.tryAcquire();
+      if (suppressed >= 0) {
+        logger.warn("Cannot set user authentication: {}{}", e.toString(),
+            LogRateLimiter.suppressedSuffix(suppressed, "failures"));
+      }
+      logger.debug("Cannot set user authentication", e);
     }
 
     filterChain.doFilter(request, response);
   }
 
-  private String parseJwt(HttpServletRequest request) {
+  private UserDetails loadUserDetails(Claims claims) {
+    UserDetailsImpl principal = statelessPrincipal ? jwtUtils.getUserDetailsFromClaims(claims) : null;
+    if (principal == null) {
+      return userDetailsService.loadUserByUsername(claims.getSubject());
+    }
+
+    if (revocationCheck && !userRepository.existsById(principal.getId())) {
+      long suppressed = revocationLogLimiter.tryAcquire();
+      if (suppressed >= 0) {
+        logger.warn("Rejected token of deleted user {}{}", principal.getId(),
+            LogRateLimiter.suppressedSuffix(suppressed, "rejections"));
+      }
+      return null;
+    }
+
+    return principal;
+  }
+
+  String parseJwt(HttpServletRequest request) {
     String headerAuth = request.getHeader("Authorization");
 
     if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
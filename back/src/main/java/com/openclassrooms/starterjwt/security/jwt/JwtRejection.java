@@ -0,0 +1,51 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+/**
+ * Why a token was refused, used as the {@code reason} tag of the {@code jwt.rejections} counter.
+ */
+enum JwtRejection {
+  SIGNATURE("Invalid JWT signature"),
+  MALFORMED("Invalid JWT token"),
+  EXPIRED("JWT token is expired"),
+  UNSUPPORTED("JWT token is unsupported"),
+  EMPTY("JWT claims string is empty"),
+  INVALID("JWT token is invalid");
+
+  private final String description;
+
+  JwtRejection(String description) {
+    this.description = description;
+  }
+
+  String getDescription() {
+    return description;
+  }
+
+  String getTag() {
+    return name().toLowerCase();
+  }
+
+  static JwtRejection of(RuntimeException e) {
+    if (e instanceof SignatureException) {
+      return SIGNATURE;
+    }
+    if (e instanceof MalformedJwtException) {
+      return MALFORMED;
+    }
+    if (e instanceof ExpiredJwtException) {
+      return EXPIRED;
+    }
+    if (e instanceof UnsupportedJwtException) {
+      return UNSUPPORTED;
+    }
+    if (e instanceof IllegalArgumentException) {
+      return EMPTY;
+    }
+    return INVALID;
+  }
+}
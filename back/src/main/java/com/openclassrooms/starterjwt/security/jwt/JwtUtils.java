@@ -1,33 +1,109 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Component
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+  static final String CLAIM_ID = "id";
+  static final String CLAIM_FIRST_NAME = "firstName";
+  static final String CLAIM_LAST_NAME = "lastName";
+  static final String CLAIM_ADMIN = "admin";
+
   @Value("${oc.app.jwtSecret}")
   private String jwtSecret;
 
   @Value("${oc.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  @Value("${oc.app.jwtCacheSize}")
+  private int jwtCacheSize;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private Cache<String, Claims> claimsCache;
+
+  private Cache<String, JwtRejection> rejectedTokens;
+
+  private final Map<JwtRejection, Counter> rejectionCounters = new EnumMap<>(JwtRejection.class);
+
+  private final Map<JwtRejection, LogRateLimiter> rejectionLogLimiters = new EnumMap<>(JwtRejection.class);
+
+  @PostConstruct
+  void init() {
+    for (JwtRejection rejection : JwtRejection.values()) {
+      rejectionCounters.put(rejection, Counter.builder("jwt.rejections")
+          .tag("reason", rejection.getTag())
+          .register(meterRegistry));
+      rejectionLogLimiters.put(rejection, new LogRateLimiter(10, TimeUnit.SECONDS));
+    }
+
+    // A rejected token never becomes valid, so the verdict can be kept as long as the token could have lived
+    this.rejectedTokens = Caffeine.newBuilder()
+        .maximumSize(jwtCacheSize)
+        .expireAfterWrite(jwtExpirationMs, TimeUnit.MILLISECONDS)
+        .build();
+    this.claimsCache = Caffeine.newBuilder()
+        .maximumSize(jwtCacheSize)
+        .expireAfter(new Expiry<String, Claims>() {
+          @Override
+          public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            long ttlMs = expiration != null ? expiration.getTime() - System.currentTimeMillis() : jwtExpirationMs;
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMs));
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+
+          @Override
+          public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .build();
+  }
+
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
     return Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
+        .claim(CLAIM_ID, userPrincipal.getId())
+        .claim(CLAIM_FIRST_NAME, userPrincipal.getFirstName())
+        .claim(CLAIM_LAST_NAME, userPrincipal.getLastName())
+        .claim(CLAIM_ADMIN, Boolean.TRUE.equals(userPrincipal.getAdmin()))
         .setIssuedAt(new Date())
         .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
         .signWith(SignatureAlgorithm.HS512, jwtSecret)
@@ -38,22 +114,87 @@ public class JwtUtils {
     return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
   }
 
+  /**
+   * Rebuilds the principal from the signed claims, without a database lookup. Returns null for tokens issued before
+   * the claims were added, which must still go through the user details service.
+   */
+  public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+    Object id = claims.get(CLAIM_ID);
+    if (!(id instanceof Number)) {
+      return null;
+    }
+
+    boolean admin = Boolean.TRUE.equals(claims.get(CLAIM_ADMIN, Boolean.class));
+    return UserDetailsImpl
+        .builder()
+        .id(((Number) id).longValue())
+        .username(claims.getSubject())
+        .firstName(claims.get(CLAIM_FIRST_NAME, String.class))
+        .lastName(claims.get(CLAIM_LAST_NAME, String.class))
+        .admin(admin)
+        .authorities(UserDetailsImpl.authoritiesFor(admin))
+        .build();
+  }
+
   public boolean validateJwtToken(String authToken) {
+    return parseJwtToken(authToken) != null;
+  }
+
+  /**
+   * Verifies the signature and expiry of the token once and returns its claims, or null when it is not valid.
+   * Verdicts are cached by SHA-256 digest, valid tokens until their {@code exp}, so a client sending the same token
+   * again skips the HS512 verification whether it was accepted or not.
+   */
+  public Claims parseJwtToken(String authToken) {
+    if (!StringUtils.hasText(authToken)) {
+      reject(JwtRejection.EMPTY, "no token");
+      return null;
+    }
+
+    String key = digest(authToken);
+    Claims claims = claimsCache.getIfPresent(key);
+    if (claims != null) {
+      return claims;
+    }
+
+    JwtRejection knownRejection = rejectedTokens.getIfPresent(key);
+    if (knownRejection != null) {
+      reject(knownRejection, "token already rejected");
+      return null;
+    }
+
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
-    } catch (SignatureException e) {
-      logger.error("Invalid JWT signature: {}", e.getMessage());
-    } catch (MalformedJwtException e) {
-      logger.error("Invalid JWT token: {}", e.getMessage());
-    } catch (ExpiredJwtException e) {
-      logger.error("JWT token is expired: {}", e.getMessage());
-    } catch (UnsupportedJwtException e) {
-      logger.error("JWT token is unsupported: {}", e.getMessage());
-    } catch (IllegalArgumentException e) {
-      logger.error("JWT claims string is empty: {}", e.getMessage());
-    }
-
-    return false;
+      claims = Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken).getBody();
+      claimsCache.put(key, claims);
+      return claims;
+    } catch (JwtException | IllegalArgumentException e) {
+      JwtRejection rejection = JwtRejection.of(e);
+      rejectedTokens.put(key, rejection);
+      reject(rejection, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Counts every rejection but logs at most one per reason and interval, so a burst of bad tokens does not flood
+   * the logs.
+   */
+  private void reject(JwtRejection rejection, String message) {
+    rejectionCounters.get(rejection).increment();
+
+    long suppressed = rejectionLogLimiters.get(rejection).tryAcquire();
+    if (suppressed >= 0) {
+      logger.warn("{}: {}{}", rejection.getDescription(), message,
+          LogRateLimiter.suppressedSuffix(suppressed, "rejections"));
+    }
+  }
+
+  private static String digest(String token) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
   }
 }
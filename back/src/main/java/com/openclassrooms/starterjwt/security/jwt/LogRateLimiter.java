@@ -0,0 +1,48 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets one log line through per interval and counts the ones held back, so a flood of identical failures costs an
+ * atomic increment instead of a log write.
+ */
+final class LogRateLimiter {
+  private final long intervalNanos;
+  private final LongSupplier clock;
+  private final AtomicLong nextPermitAt;
+  private final AtomicLong suppressed = new AtomicLong();
+
+  LogRateLimiter(long interval, TimeUnit unit) {
+    this(unit.toNanos(interval), System::nanoTime);
+  }
+
+  LogRateLimiter(long intervalNanos, LongSupplier clock) {
+    this.intervalNanos = intervalNanos;
+    this.clock = clock;
+    this.nextPermitAt = new AtomicLong(clock.getAsLong());
+  }
+
+  /**
+   * @return the number of events suppressed since the last permit, or -1 when this event must not be logged
+   */
+  long tryAcquire() {
+    long now = clock.getAsLong();
+    long next = nextPermitAt.get();
+    if (now - next >= 0 && nextPermitAt.compareAndSet(next, now + intervalNanos)) {
+      return suppressed.getAndSet(0);
+    }
+
+    suppressed.incrementAndGet();
+    return -1;
+  }
+
+  /**
+   * @param suppressed a count returned by {@link #tryAcquire}
+   * @return " (N similar {@code events} not logged)" to append to the log line, or nothing when N is 0
+   */
+  static String suppressedSuffix(long suppressed, String events) {
+    return suppressed > 0 ? " (" + suppressed + " similar " + events + " not logged)" : "";
+  }
+}
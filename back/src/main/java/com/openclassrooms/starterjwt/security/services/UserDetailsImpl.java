@@ -1,10 +1,13 @@
 package com.openclassrooms.starterjwt.security.services;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -19,6 +22,9 @@ import lombok.Getter;
 public class UserDetailsImpl implements UserDetails {
   private static final long serialVersionUID = 1L;
 
+  private static final GrantedAuthority ROLE_USER = new SimpleGrantedAuthority("ROLE_USER");
+  private static final GrantedAuthority ROLE_ADMIN = new SimpleGrantedAuthority("ROLE_ADMIN");
+
   private Long id;
 
   private String username;
@@ -31,9 +37,17 @@ public class UserDetailsImpl implements UserDetails {
 
   @JsonIgnore
   private String password;  
-  
-  public Collection<? extends GrantedAuthority> getAuthorities() {        
-      return new HashSet<GrantedAuthority>();
+
+  @Builder.Default
+  private Collection<GrantedAuthority> authorities = Collections.emptyList();
+
+  public static Collection<GrantedAuthority> authoritiesFor(boolean admin) {
+    List<GrantedAuthority> authorities = new ArrayList<>();
+    authorities.add(ROLE_USER);
+    if (admin) {
+      authorities.add(ROLE_ADMIN);
+    }
+    return Collections.unmodifiableList(authorities);
   }
 
   @Override
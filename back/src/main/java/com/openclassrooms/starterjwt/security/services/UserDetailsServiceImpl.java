@@ -1,6 +1,8 @@
 package com.openclassrooms.starterjwt.security.services;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -8,17 +10,25 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.UserService;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+  /** Principals by email, so an authenticated request does not need a SELECT. Evicted on every user mutation. */
+  public static final String CACHE_NAME = "userDetails";
+
   UserRepository userRepository;
 
-  UserDetailsServiceImpl(UserRepository userRepository) {
+  UserService userService;
+
+  UserDetailsServiceImpl(UserRepository userRepository, UserService userService) {
     this.userRepository = userRepository;
+    this.userService = userService;
   }
 
   @Override
   @Transactional
+  @Cacheable(CACHE_NAME)
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
     User user = userRepository.findByEmail(username)
         .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + username));
@@ -29,8 +39,31 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             .username(user.getEmail())
             .lastName(user.getLastName())
             .firstName(user.getFirstName())
+            .admin(user.isAdmin())
+            .authorities(UserDetailsImpl.authoritiesFor(user.isAdmin()))
             .password(user.getPassword())
             .build();
   }
 
+  /**
+   * Stores the hash re-encoded at the current cost after a successful login.
+   */
+  @Override
+  @Transactional
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    userRepository.updatePassword(user.getUsername(), newPassword);
+    userService.evictUserDetails(user.getUsername());
+
+    UserDetailsImpl details = (UserDetailsImpl) user;
+    return UserDetailsImpl
+            .builder()
+            .id(details.getId())
+            .username(details.getUsername())
+            .lastName(details.getLastName())
+            .firstName(details.getFirstName())
+            .admin(details.getAdmin())
+            .authorities(details.getAuthorities())
+            .password(newPassword)
+            .build();
+  }
 }
@@ -0,0 +1,13 @@
+package com.openclassrooms.starterjwt.services;
+
+/**
+ * Outcome of one user id in a bulk enrollment or removal.
+ */
+public enum ParticipationStatus {
+    ADDED,
+    ALREADY_PARTICIPATING,
+    SESSION_FULL,
+    UNKNOWN_USER,
+    REMOVED,
+    NOT_PARTICIPATING
+}
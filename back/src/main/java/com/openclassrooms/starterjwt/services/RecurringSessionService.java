@@ -0,0 +1,307 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.RecurringSession;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.OccurrenceKey;
+import com.openclassrooms.starterjwt.repository.RecurringSessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class RecurringSessionService {
+    private final RecurringSessionRepository recurringSessionRepository;
+
+    private final SessionRepository sessionRepository;
+
+    public RecurringSessionService(RecurringSessionRepository recurringSessionRepository,
+                                   SessionRepository sessionRepository) {
+        this.recurringSessionRepository = recurringSessionRepository;
+        this.sessionRepository = sessionRepository;
+    }
+
+    /**
+     * @throws BadRequestException when the recurrence ends before its first occurrence
+     */
+    public RecurringSession create(RecurringSession recurringSession) {
+        // Stored occurrences are matched on their exact date, which MySQL keeps to the second
+        recurringSession.setStartsAt(Date.from(recurringSession.getStartsAt().toInstant().truncatedTo(ChronoUnit.SECONDS)));
+        if (recurringSession.getIntervalWeeks() == null) {
+            recurringSession.setIntervalWeeks(1);
+        }
+        if (recurringSession.getEndsOn() != null && recurringSession.getEndsOn().isBefore(firstOf(recurringSession).toLocalDate())) {
+            throw new BadRequestException("endsOn must not be before startsAt");
+        }
+
+        return this.recurringSessionRepository.save(recurringSession);
+    }
+
+    /**
+     * Stored occurrences are kept as standalone sessions.
+     */
+    @Transactional
+    public void delete(Long id) {
+        if (!this.recurringSessionRepository.existsById(id)) {
+            throw new NotFoundException();
+        }
+
+        this.sessionRepository.detachOccurrences(id);
+        this.recurringSessionRepository.deleteById(id);
+    }
+
+    public List<RecurringSession> findAll() {
+        return this.recurringSessionRepository.findAllWithExceptions();
+    }
+
+    public RecurringSession findById(Long id) {
+        return this.recurringSessionRepository.findWithExceptionsById(id).orElse(null);
+    }
+
+    /**
+     * Cancels the occurrence on {@code day}, which then no longer appears in the listing. An occurrence already joined
+     * is deleted along with its participations.
+     *
+     * @throws NotFoundException when there is no such occurrence
+     */
+    @Transactional
+    public RecurringSession cancelOccurrence(Long id, LocalDate day) {
+        this.recurringSessionRepository.lockById(id).orElseThrow(NotFoundException::new);
+        RecurringSession recurringSession = this.recurringSessionRepository.findWithExceptionsById(id)
+                .orElseThrow(NotFoundException::new);
+        Date date = occurrenceOn(recurringSession, day).orElseThrow(NotFoundException::new);
+
+        this.sessionRepository.findByRecurringSessionIdAndDate(id, date).ifPresent(this.sessionRepository::delete);
+
+        recurringSession.getExceptions().add(day);
+        return this.recurringSessionRepository.save(recurringSession);
+    }
+
+    /**
+     * Records the day of a stored occurrence about to be deleted as an exception of its template, so that the
+     * occurrence is not listed again as not joined yet. Does nothing when the template was deleted.
+     */
+    void excludeOccurrence(Session occurrence) {
+        Long id = occurrence.getRecurringSessionId();
+        if (!this.recurringSessionRepository.lockById(id).isPresent()) {
+            return;
+        }
+
+        RecurringSession recurringSession = this.recurringSessionRepository.findWithExceptionsById(id)
+                .orElseThrow(NotFoundException::new);
+        recurringSession.getExceptions()
+                .add(Instant.ofEpochMilli(occurrence.getDate().getTime()).atZone(ZoneId.systemDefault()).toLocalDate());
+        this.recurringSessionRepository.save(recurringSession);
+    }
+
+    /**
+     * Returns at most {@code limit} occurrences matching {@code search} that are not stored in {@code SESSIONS}, in
+     * the listing order and starting right after {@code after} (or from the beginning when {@code after} is null).
+     * The occurrences are transient sessions without id. Only as many occurrences as requested are computed: each
+     * recurring session is advanced lazily from the requested position, whatever its length.
+     */
+    @Transactional(readOnly = true)
+    public List<Session> findOccurrences(SessionSearch search, SessionCursor after, int limit) {
+        ZoneId zone = ZoneId.systemDefault();
+        Instant start = search.getFrom() != null ? search.getFrom().atStartOfDay(zone).toInstant() : null;
+        if (after != null && (start == null || after.getDate().toInstant().isAfter(start))) {
+            start = after.getDate().toInstant();
+        }
+        Instant end = search.getTo() != null ? search.getTo().plusDays(1).atStartOfDay(zone).toInstant() : null;
+
+        List<RecurringSession> recurringSessions = start == null
+                ? this.recurringSessionRepository.findAllWithExceptions()
+                : this.recurringSessionRepository.findActiveOn(start.atZone(zone).toLocalDate());
+
+        PriorityQueue<Expansion> queue = new PriorityQueue<>(Expansion.ORDER);
+        for (RecurringSession recurringSession : recurringSessions) {
+            if (matches(recurringSession, search)) {
+                Expansion expansion = new Expansion(recurringSession, start, end);
+                if (after != null && expansion.isAt(after)) {
+                    expansion.advance();
+                }
+                if (expansion.hasCurrent()) {
+                    queue.add(expansion);
+                }
+            }
+        }
+
+        List<Session> occurrences = new ArrayList<>();
+        while (occurrences.size() < limit && !queue.isEmpty()) {
+            List<Session> candidates = new ArrayList<>();
+            while (occurrences.size() + candidates.size() < limit && !queue.isEmpty()) {
+                Expansion expansion = queue.poll();
+                candidates.add(toOccurrence(expansion.recurringSession, expansion.current));
+                expansion.advance();
+                if (expansion.hasCurrent()) {
+                    queue.add(expansion);
+                }
+            }
+
+            Set<String> stored = this.sessionRepository.findOccurrenceKeys(
+                            candidates.stream().map(Session::getRecurringSessionId).collect(Collectors.toSet()),
+                            candidates.get(0).getDate(), candidates.get(candidates.size() - 1).getDate())
+                    .stream()
+                    .map(key -> key(key.getRecurringSessionId(), key.getDate()))
+                    .collect(Collectors.toSet());
+            candidates.stream()
+                    .filter(candidate -> !stored.contains(key(candidate.getRecurringSessionId(), candidate.getDate())))
+                    .forEach(occurrences::add);
+        }
+
+        return occurrences;
+    }
+
+    /**
+     * Stores the occurrence on {@code day} in {@code SESSIONS}, or returns it when it already is. The template row is
+     * locked first, so concurrent materializations wait for each other instead of colliding on the unique key, and
+     * the stored row is rolled back with the rest of the transaction when the join that needed it fails.
+     *
+     * @throws NotFoundException when there is no such occurrence
+     */
+    @Transactional
+    public Session materialize(Long id, LocalDate day) {
+        this.recurringSessionRepository.lockById(id).orElseThrow(NotFoundException::new);
+        RecurringSession recurringSession = this.recurringSessionRepository.findWithExceptionsById(id)
+                .orElseThrow(NotFoundException::new);
+        Date date = occurrenceOn(recurringSession, day).orElseThrow(NotFoundException::new);
+
+        return this.sessionRepository.findByRecurringSessionIdAndDate(id, date)
+                .orElseGet(() -> this.sessionRepository.saveAndFlush(toOccurrence(recurringSession, date)));
+    }
+
+    /**
+     * Date of the occurrence on {@code day}, if the recurrence has one that is not cancelled.
+     */
+    static Optional<Date> occurrenceOn(RecurringSession recurringSession, LocalDate day) {
+        ZonedDateTime first = firstOf(recurringSession);
+        long weeks = ChronoUnit.WEEKS.between(first.toLocalDate(), day);
+        boolean occurs = !day.isBefore(first.toLocalDate())
+                && day.getDayOfWeek() == first.getDayOfWeek()
+                && weeks % recurringSession.getIntervalWeeks() == 0
+                && (recurringSession.getEndsOn() == null || !day.isAfter(recurringSession.getEndsOn()))
+                && (recurringSession.getExceptions() == null || !recurringSession.getExceptions().contains(day));
+
+        return occurs ? Optional.of(Date.from(first.plusWeeks(weeks).toInstant())) : Optional.empty();
+    }
+
+    private static ZonedDateTime firstOf(RecurringSession recurringSession) {
+        return recurringSession.getStartsAt().toInstant().atZone(ZoneId.systemDefault());
+    }
+
+    private static boolean matches(RecurringSession recurringSession, SessionSearch search) {
+        if (search.getTeacherId() != null && (recurringSession.getTeacher() == null
+                || !search.getTeacherId().equals(recurringSession.getTeacher().getId()))) {
+            return false;
+        }
+
+        if (search.getText() != null && !search.getText().trim().isEmpty()) {
+            String text = search.getText().trim().toLowerCase();
+            return recurringSession.getName().toLowerCase().contains(text)
+                    || recurringSession.getDescription().toLowerCase().contains(text);
+        }
+
+        // An occurrence that is not stored has no participant, so it always has free seats
+        return true;
+    }
+
+    private static Session toOccurrence(RecurringSession recurringSession, Date date) {
+        return Session.builder()
+                .name(recurringSession.getName())
+                .description(recurringSession.getDescription())
+                .date(date)
+                .teacher(recurringSession.getTeacher())
+                .capacity(recurringSession.getCapacity())
+                .participantCount(0)
+                .users(new ArrayList<>())
+                .recurringSessionId(recurringSession.getId())
+                .build();
+    }
+
+    private static String key(Long recurringSessionId, Date date) {
+        return recurringSessionId + "@" + date.getTime();
+    }
+
+    /**
+     * The next occurrences of one recurring session within the requested window, computed one at a time.
+     */
+    private static final class Expansion {
+        static final Comparator<Expansion> ORDER = Comparator
+                .comparing((Expansion expansion) -> expansion.current)
+                .thenComparingLong(expansion -> -expansion.recurringSession.getId());
+
+        private final RecurringSession recurringSession;
+        private final ZonedDateTime first;
+        private final Instant end;
+        private long index;
+        private Date current;
+
+        Expansion(RecurringSession recurringSession, Instant start, Instant end) {
+            this.recurringSession = recurringSession;
+            this.first = firstOf(recurringSession);
+            this.end = end;
+
+            // Jump straight to the first occurrence at or after start instead of walking from the first one
+            if (start != null && start.isAfter(this.first.toInstant())) {
+                long weeks = ChronoUnit.WEEKS.between(this.first, start.atZone(this.first.getZone()));
+                this.index = weeks / recurringSession.getIntervalWeeks();
+                while (this.at(this.index).toInstant().isBefore(start)) {
+                    this.index++;
+                }
+            }
+            this.seek();
+        }
+
+        boolean hasCurrent() {
+            return this.current != null;
+        }
+
+        boolean isAt(SessionCursor cursor) {
+            return this.current != null
+                    && this.current.getTime() == cursor.getDate().getTime()
+                    && -this.recurringSession.getId() <= cursor.getId();
+        }
+
+        void advance() {
+            this.index++;
+            this.seek();
+        }
+
+        /**
+         * Moves to the first occurrence from {@code index} on that is not cancelled, or clears {@code current} past the
+         * end of the recurrence or of the window.
+         */
+        private void seek() {
+            ZonedDateTime next = this.at(this.index);
+            while (this.recurringSession.getExceptions() != null
+                    && this.recurringSession.getExceptions().contains(next.toLocalDate())) {
+                next = this.at(++this.index);
+            }
+
+            boolean ended = (this.recurringSession.getEndsOn() != null
+                    && next.toLocalDate().isAfter(this.recurringSession.getEndsOn()))
+                    || (this.end != null && !next.toInstant().isBefore(this.end));
+            this.current = ended ? null : Date.from(next.toInstant());
+        }
+
+        private ZonedDateTime at(long index) {
+            return this.first.plusWeeks(index * this.recurringSession.getIntervalWeeks());
+        }
+    }
+}
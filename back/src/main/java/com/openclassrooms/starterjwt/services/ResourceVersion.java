@@ -0,0 +1,86 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.ChangeSummary;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Validator for conditional GETs: the ETag combines an identity (the id of an entity, the row count of a collection)
+ * with the last modification time. Only an entity also sends that time as {@code Last-Modified}: the latest update of
+ * a collection does not change when a row other than the newest is deleted, so a collection is validated by ETag only.
+ */
+@Getter
+@EqualsAndHashCode
+public final class ResourceVersion {
+    private final String key;
+    private final LocalDateTime lastModified;
+    private final boolean collection;
+
+    public ResourceVersion(String key, LocalDateTime lastModified) {
+        this(key, lastModified, false);
+    }
+
+    private ResourceVersion(String key, LocalDateTime lastModified, boolean collection) {
+        this.key = key;
+        this.lastModified = lastModified;
+        this.collection = collection;
+    }
+
+    public static ResourceVersion ofEntity(Long id, LocalDateTime updatedAt) {
+        return new ResourceVersion(String.valueOf(id), updatedAt);
+    }
+
+    public static ResourceVersion ofCollection(ChangeSummary summary) {
+        return new ResourceVersion(String.valueOf(summary.getCount()), summary.getLastModified(), true);
+    }
+
+    /**
+     * Same version as {@link #ofCollection(ChangeSummary)}, computed from rows that are already loaded.
+     */
+    public static <T> ResourceVersion ofCollection(Collection<T> items, Function<T, LocalDateTime> updatedAt) {
+        LocalDateTime lastModified = items.stream()
+                .map(updatedAt)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+
+        return new ResourceVersion(String.valueOf(items.size()), lastModified, true);
+    }
+
+    /**
+     * Same version for another representation of the resource, so that caches never swap one for the other.
+     */
+    public ResourceVersion withVariant(String variant) {
+        return new ResourceVersion(this.key + "." + variant, this.lastModified, this.collection);
+    }
+
+    /**
+     * @return the modification time in epoch milliseconds, or -1 when unknown
+     */
+    public long getLastModifiedMillis() {
+        if (this.lastModified == null) {
+            return -1;
+        }
+
+        return this.lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * @return the {@code Last-Modified} to send and compare with {@code If-Modified-Since} in epoch milliseconds, or -1
+     * when there is none
+     */
+    public long getLastModifiedHeaderMillis() {
+        return this.collection ? -1 : getLastModifiedMillis();
+    }
+
+    public String getETag() {
+        return this.key + "-" + getLastModifiedMillis();
+    }
+}
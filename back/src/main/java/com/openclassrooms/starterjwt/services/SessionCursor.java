@@ -0,0 +1,63 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * Opaque keyset position in the session listing, ordered by {@code (date, id)}. An occurrence of a recurring session
+ * that is not stored has no id; it takes the negated id of its recurring session instead.
+ */
+@Getter
+@EqualsAndHashCode
+public final class SessionCursor {
+    private static final String SEPARATOR = ":";
+
+    /**
+     * The listing order, for sessions and unstored occurrences alike.
+     */
+    public static final Comparator<Session> ORDER = Comparator
+            .comparingLong((Session session) -> session.getDate().getTime())
+            .thenComparingLong(SessionCursor::keyOf);
+
+    private final Date date;
+    private final Long id;
+
+    public SessionCursor(Date date, Long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public static SessionCursor of(Session session) {
+        return new SessionCursor(session.getDate(), keyOf(session));
+    }
+
+    static long keyOf(Session session) {
+        return session.getId() != null ? session.getId() : -session.getRecurringSessionId();
+    }
+
+    public static SessionCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR);
+            if (parts.length != 2) {
+                throw new BadRequestException();
+            }
+
+            return new SessionCursor(new Date(Long.parseLong(parts[0])), Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    public String encode() {
+        String raw = this.date.getTime() + SEPARATOR + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,24 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Criteria of {@code GET /api/session/search}. Every criterion is optional; the dates are inclusive days.
+ */
+@Data
+public class SessionSearch {
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    private Long teacherId;
+
+    private String text;
+
+    private Boolean freeSeats;
+}
@@ -1,14 +1,29 @@
 package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.ConflictException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSpecifications;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,62 +32,376 @@ public class SessionService {
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final RecurringSessionService recurringSessionService;
+
+    public SessionService(SessionRepository sessionRepository, UserRepository userRepository,
+                          RecurringSessionService recurringSessionService) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.recurringSessionService = recurringSessionService;
     }
 
+    /**
+     * @throws BadRequestException when the participants outnumber the capacity
+     */
+    @Transactional
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        checkCapacity(session, "");
+        Session created = this.sessionRepository.saveAndFlush(session);
+        this.sessionRepository.refreshParticipantCount(created.getId());
+        return created;
+    }
+
+    /**
+     * Inserts every session in one transaction. Ids come from a pooled generator, so the rows and their participants
+     * go out as JDBC batches rather than one round trip each.
+     *
+     * @throws BadRequestException when the participants of a session outnumber its capacity
+     */
+    @Transactional
+    public List<Session> createAll(List<Session> sessions) {
+        for (int i = 0; i < sessions.size(); i++) {
+            checkCapacity(sessions.get(i), "Session " + (i + 1) + ": ");
+        }
+
+        List<Session> created = this.sessionRepository.saveAll(sessions);
+        this.sessionRepository.flush();
+
+        List<Long> withParticipants = created.stream()
+                .filter(session -> session.getUsers() != null && !session.getUsers().isEmpty())
+                .map(Session::getId)
+                .collect(Collectors.toList());
+        if (!withParticipants.isEmpty()) {
+            this.sessionRepository.refreshParticipantCounts(withParticipants);
+        }
+
+        return created;
     }
 
+    /**
+     * A stored occurrence of a recurring session is cancelled on its template as well, so that its day is not
+     * listed again.
+     */
+    @Transactional
     public void delete(Long id) {
-        this.sessionRepository.deleteById(id);
+        this.sessionRepository.findById(id).ifPresent(session -> {
+            if (session.getRecurringSessionId() != null) {
+                this.recurringSessionService.excludeOccurrence(session);
+            }
+            this.sessionRepository.delete(session);
+        });
+    }
+
+    /**
+     * @param withParticipants false to leave {@code users} unloaded
+     */
+    public List<Session> findAll(boolean withParticipants) {
+        return withParticipants
+                ? this.sessionRepository.findAllWithUsers()
+                : this.sessionRepository.findAllWithTeacher();
     }
 
-    public List<Session> findAll() {
-        return this.sessionRepository.findAll();
+    /**
+     * Version of the whole listing, read with one aggregate query instead of loading the sessions.
+     */
+    public ResourceVersion findAllVersion() {
+        return ResourceVersion.ofCollection(this.sessionRepository.summarize());
+    }
+
+    /**
+     * Returns at most {@code limit} stored sessions ordered by {@code (date, id)}, starting right after {@code after}
+     * (or from the beginning when {@code after} is null). Occurrences of recurring sessions that are not stored are
+     * left out, so the listing ends; {@link #search} includes them.
+     *
+     * @param withParticipants false to leave {@code users} unloaded
+     */
+    @Transactional(readOnly = true)
+    public List<Session> findPage(SessionCursor after, int limit, boolean withParticipants) {
+        Pageable pageable = PageRequest.of(0, limit);
+        List<Session> sessions = after == null
+                ? this.sessionRepository.findFirstPage(pageable)
+                : this.sessionRepository.findPageAfter(after.getDate(), after.getId(), pageable);
+
+        if (withParticipants) {
+            this.fetchParticipants(sessions);
+        }
+
+        return sessions;
+    }
+
+    /**
+     * Returns at most {@code limit} sessions matching {@code search}, ordered by {@code (date, id)} and starting right
+     * after {@code after} (or from the beginning when {@code after} is null). The page merges the stored sessions with
+     * the occurrences of recurring sessions not stored yet, which have no id.
+     *
+     * @param withParticipants false to leave {@code users} unloaded
+     * @throws BadRequestException when the date range is reversed
+     */
+    @Transactional(readOnly = true)
+    public List<Session> search(SessionSearch search, SessionCursor after, int limit, boolean withParticipants) {
+        if (search.getFrom() != null && search.getTo() != null && search.getFrom().isAfter(search.getTo())) {
+            throw new BadRequestException("from must not be after to");
+        }
+
+        Specification<Session> specification = Specification.where(SessionSpecifications.onOrAfter(search.getFrom()))
+                .and(SessionSpecifications.onOrBefore(search.getTo()))
+                .and(SessionSpecifications.taughtBy(search.getTeacherId()))
+                .and(SessionSpecifications.mentioning(search.getText()))
+                .and(SessionSpecifications.withFreeSeats(search.getFreeSeats()));
+        if (after != null) {
+            specification = specification.and(SessionSpecifications.after(after.getDate(), after.getId()));
+        }
+
+        List<Session> sessions = this.sessionRepository.search(specification, limit);
+        if (withParticipants) {
+            this.fetchParticipants(sessions);
+        }
+
+        List<Session> occurrences = this.recurringSessionService.findOccurrences(search, after, limit);
+        if (occurrences.isEmpty()) {
+            return sessions;
+        }
+
+        List<Session> page = new ArrayList<>(sessions);
+        page.addAll(occurrences);
+        page.sort(SessionCursor.ORDER);
+        return new ArrayList<>(page.subList(0, Math.min(limit, page.size())));
     }
 
     public Session getById(Long id) {
-        return this.sessionRepository.findById(id).orElse(null);
+        return this.sessionRepository.findWithUsersById(id).orElse(null);
+    }
+
+    /**
+     * Same as {@link #getById(Long)} without loading the participants.
+     */
+    public Session getSummaryById(Long id) {
+        return this.sessionRepository.findWithTeacherById(id).orElse(null);
+    }
+
+    /**
+     * Returns at most {@code limit} participants of a session in user id order, starting right after the user id
+     * {@code after} (or from the first one when {@code after} is null).
+     *
+     * @throws NotFoundException when the session does not exist
+     */
+    public List<User> findParticipants(Long id, Long after, int limit) {
+        List<User> participants = this.sessionRepository.findParticipants(
+                id, after != null ? after : 0L, PageRequest.of(0, limit));
+
+        if (participants.isEmpty() && !this.sessionRepository.existsById(id)) {
+            throw new NotFoundException();
+        }
+
+        return participants;
+    }
+
+    /**
+     * Returns at most {@code limit} sessions attended by a user, ordered by {@code (date, id)} and starting right
+     * after {@code after} (or from the beginning when {@code after} is null). The participants are not loaded.
+     *
+     * @throws NotFoundException when the user does not exist
+     */
+    @Transactional(readOnly = true)
+    public List<Session> findPageOfUser(Long userId, SessionCursor after, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        List<Session> sessions = after == null
+                ? this.sessionRepository.findFirstPageOfUser(userId, pageable)
+                : this.sessionRepository.findPageOfUserAfter(userId, after.getDate(), after.getId(), pageable);
+
+        if (sessions.isEmpty() && !this.userRepository.existsById(userId)) {
+            throw new NotFoundException();
+        }
+
+        return sessions;
+    }
+
+    /**
+     * Reads the maintained seat counter instead of counting {@code PARTICIPATE} rows.
+     *
+     * @throws NotFoundException when the session does not exist
+     */
+    public int countParticipants(Long id) {
+        return this.sessionRepository.findParticipantCountById(id).orElseThrow(NotFoundException::new);
+    }
+
+    /**
+     * Version of one session read by primary key without loading it, or null when it is unknown.
+     */
+    public ResourceVersion findVersion(Long id) {
+        return this.sessionRepository.findUpdatedAtById(id)
+                .map(updatedAt -> ResourceVersion.ofEntity(id, updatedAt))
+                .orElse(null);
     }
 
+    /**
+     * @throws BadRequestException when the participants outnumber the capacity
+     */
+    @Transactional
     public Session update(Long id, Session session) {
+        checkCapacity(session, "");
         session.setId(id);
-        return this.sessionRepository.save(session);
+        Session updated = this.sessionRepository.saveAndFlush(session);
+        this.sessionRepository.refreshParticipantCount(id);
+        return updated;
     }
 
+    /**
+     * Adds a single {@code PARTICIPATE} row; the participant list is never loaded. A seat is reserved first with a
+     * conditional update, and the unique {@code (session_id, user_id)} constraint settles concurrent joins of the
+     * same user (the seat is given back by the rollback).
+     *
+     * @throws ConflictException when the session is full
+     */
+    @Transactional
     public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
+        if (!this.sessionRepository.existsById(id) || !this.userRepository.existsById(userId)) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
+        if (this.sessionRepository.countParticipation(id, userId) > 0) {
             throw new BadRequestException();
         }
 
-        session.getUsers().add(user);
+        if (this.sessionRepository.reserveSeat(id) == 0) {
+            throw new ConflictException();
+        }
 
-        this.sessionRepository.save(session);
+        try {
+            this.sessionRepository.addParticipant(id, userId);
+        } catch (DataIntegrityViolationException e) {
+            throw new BadRequestException();
+        }
     }
 
+    /**
+     * Joins the occurrence of a recurring session on {@code day}, storing it first if nobody joined it yet. Both run
+     * in one transaction, so a failed join leaves no stored occurrence behind.
+     *
+     * @return the id of the stored occurrence
+     * @throws NotFoundException when there is no such occurrence
+     * @throws ConflictException when the occurrence is full
+     */
+    @Transactional
+    public Long participateInOccurrence(Long recurringSessionId, LocalDate day, Long userId) {
+        Long id = this.recurringSessionService.materialize(recurringSessionId, day).getId();
+        this.participate(id, userId);
+        return id;
+    }
+
+    /**
+     * Deletes a single {@code PARTICIPATE} row; existence is only checked when nothing was deleted.
+     */
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
+        if (this.sessionRepository.removeParticipant(id, userId) > 0) {
+            this.sessionRepository.releaseSeat(id);
+            return;
+        }
+
+        if (!this.sessionRepository.existsById(id)) {
             throw new NotFoundException();
         }
+        throw new BadRequestException();
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
-            throw new BadRequestException();
+    /**
+     * Enrolls many users at once in a handful of statements, whatever their number: the session row is locked, the
+     * known users and current participants are read with one {@code IN} query each, and the new rows are written with
+     * a single insert. Users are enrolled in request order until the session is full.
+     *
+     * @return the outcome of every distinct id, in request order
+     * @throws NotFoundException when the session does not exist
+     */
+    @Transactional
+    public Map<Long, ParticipationStatus> participateAll(Long id, Collection<Long> userIds) {
+        long freeSeats = this.sessionRepository.lockFreeSeats(id).orElseThrow(NotFoundException::new);
+        Set<Long> uniqueIds = distinctIds(userIds);
+        Map<Long, ParticipationStatus> outcomes = new LinkedHashMap<>();
+        if (uniqueIds.isEmpty()) {
+            return outcomes;
         }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+        Set<Long> known = new HashSet<>(this.userRepository.findExistingIds(uniqueIds));
+        Set<Long> participating = known.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(this.sessionRepository.findParticipantIds(id, known));
+
+        List<Long> added = new ArrayList<>();
+        for (Long userId : uniqueIds) {
+            if (!known.contains(userId)) {
+                outcomes.put(userId, ParticipationStatus.UNKNOWN_USER);
+            } else if (participating.contains(userId)) {
+                outcomes.put(userId, ParticipationStatus.ALREADY_PARTICIPATING);
+            } else if (added.size() < freeSeats) {
+                outcomes.put(userId, ParticipationStatus.ADDED);
+                added.add(userId);
+            } else {
+                outcomes.put(userId, ParticipationStatus.SESSION_FULL);
+            }
+        }
+
+        if (!added.isEmpty()) {
+            this.sessionRepository.addParticipants(id, added);
+            this.sessionRepository.refreshParticipantCount(id);
+        }
 
-        this.sessionRepository.save(session);
+        return outcomes;
     }
+
+    /**
+     * Removes many users at once, symmetric to {@link #participateAll(Long, Collection)}.
+     *
+     * @return the outcome of every distinct id, in request order
+     * @throws NotFoundException when the session does not exist
+     */
+    @Transactional
+    public Map<Long, ParticipationStatus> noLongerParticipateAll(Long id, Collection<Long> userIds) {
+        this.sessionRepository.lockFreeSeats(id).orElseThrow(NotFoundException::new);
+        Set<Long> uniqueIds = distinctIds(userIds);
+        Map<Long, ParticipationStatus> outcomes = new LinkedHashMap<>();
+        if (uniqueIds.isEmpty()) {
+            return outcomes;
+        }
+
+        Set<Long> participating = new HashSet<>(this.sessionRepository.findParticipantIds(id, uniqueIds));
+        for (Long userId : uniqueIds) {
+            outcomes.put(userId, participating.contains(userId)
+                    ? ParticipationStatus.REMOVED
+                    : ParticipationStatus.NOT_PARTICIPATING);
+        }
+
+        if (!participating.isEmpty()) {
+            this.sessionRepository.removeParticipants(id, participating);
+            this.sessionRepository.refreshParticipantCount(id);
+        }
+
+        return outcomes;
+    }
+
+    private void fetchParticipants(List<Session> sessions) {
+        if (!sessions.isEmpty()) {
+            this.sessionRepository.fetchUsers(sessions.stream().map(Session::getId).collect(Collectors.toList()));
+        }
+    }
+
+    private static Set<Long> distinctIds(Collection<Long> userIds) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(userIds);
+        if (uniqueIds.contains(null)) {
+            throw new BadRequestException("User ids must not be null");
+        }
+        return uniqueIds;
+    }
+
+    /**
+     * The participant list of a create or update is written as a whole, bypassing the seat reservation of the join
+     * path, so it is checked against the capacity up front.
+     */
+    private static void checkCapacity(Session session, String prefix) {
+        if (session.getCapacity() != null && session.getUsers() != null
+                && new HashSet<>(session.getUsers()).size() > session.getCapacity()) {
+            throw new BadRequestException(prefix + "users must not exceed capacity");
+        }
+    }
+
 }
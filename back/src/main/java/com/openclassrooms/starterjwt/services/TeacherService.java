@@ -2,23 +2,97 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Serves the teacher catalog from memory. The whole catalog is one cache entry, so a listing and a lookup by id never
+ * reach the database once it is loaded.
+ */
 @Service
 public class TeacherService {
+    public static final String CACHE_NAME = "teachers";
+
+    private static final Logger logger = LoggerFactory.getLogger(TeacherService.class);
+    private static final String CATALOG_KEY = "catalog";
+
     private final TeacherRepository teacherRepository;
+    private final CacheManager cacheManager;
 
-    public TeacherService(TeacherRepository teacherRepository) {
+    public TeacherService(TeacherRepository teacherRepository, CacheManager cacheManager) {
         this.teacherRepository = teacherRepository;
+        this.cacheManager = cacheManager;
     }
 
     public List<Teacher> findAll() {
-        return this.teacherRepository.findAll();
+        return new ArrayList<>(this.catalog().values());
+    }
+
+    public ResourceVersion findAllVersion() {
+        return ResourceVersion.ofCollection(this.catalog().values(), Teacher::getUpdatedAt);
     }
 
     public Teacher findById(Long id) {
-        return this.teacherRepository.findById(id).orElse(null);
+        return this.catalog().get(id);
+    }
+
+    /**
+     * Drops the cached catalog. Must be called by every write to a teacher, otherwise readers see the old catalog
+     * until the cache entry expires.
+     */
+    public void evictCatalog() {
+        Cache cache = this.cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.evict(CATALOG_KEY);
+        }
+    }
+
+    /**
+     * Loads the catalog before the first request. A database that is not reachable yet only delays the load to the
+     * first read.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            this.evictCatalog();
+            this.catalog();
+        } catch (DataAccessException | TransactionException e) {
+            logger.warn("Teacher catalog not preloaded: {}", e.getMessage());
+        }
+    }
+
+    private Map<Long, Teacher> catalog() {
+        Cache cache = this.cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return this.loadCatalog();
+        }
+
+        try {
+            return cache.get(CATALOG_KEY, this::loadCatalog);
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private Map<Long, Teacher> loadCatalog() {
+        Map<Long, Teacher> teachers = new LinkedHashMap<>();
+        this.teacherRepository.findAll().forEach(teacher -> teachers.put(teacher.getId(), teacher));
+        return Collections.unmodifiableMap(teachers);
     }
 }
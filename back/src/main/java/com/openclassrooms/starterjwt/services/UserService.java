@@ -1,22 +1,82 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
+    private final CacheManager cacheManager;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, CacheManager cacheManager) {
         this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
     }
 
+    @Transactional
     public void delete(Long id) {
-        this.userRepository.deleteById(id);
+        this.userRepository.findById(id).ifPresent(user -> {
+            this.userRepository.delete(user);
+            this.evictUserDetails(user.getEmail());
+        });
+    }
+
+    /**
+     * Drops the cached principal of {@code email}. Must be called by every write to a user, otherwise a deleted or
+     * changed account keeps authenticating until the cache entry expires. Within a transaction the entry is dropped
+     * after the commit: dropped earlier, a concurrent request could cache the row again before the change is visible.
+     */
+    public void evictUserDetails(String email) {
+        Cache cache = this.cacheManager.getCache(UserDetailsServiceImpl.CACHE_NAME);
+        if (cache != null) {
+            new TransactionAwareCacheDecorator(cache).evict(email);
+        }
     }
 
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    /**
+     * Resolves every id with a single {@code IN} query. The result keeps the order of {@code ids} without duplicates.
+     *
+     * @throws BadRequestException listing the ids that match no user
+     */
+    public List<User> findAllByIds(Collection<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (uniqueIds.contains(null)) {
+            throw new BadRequestException("User ids must not be null");
+        }
+
+        Map<Long, User> usersById = this.userRepository.findAllById(uniqueIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Long> unknownIds = uniqueIds.stream()
+                .filter(id -> !usersById.containsKey(id))
+                .collect(Collectors.toList());
+        if (!unknownIds.isEmpty()) {
+            throw new BadRequestException("Unknown user ids: " + unknownIds);
+        }
+
+        return uniqueIds.stream().map(usersById::get).collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,24 @@
+-- Changes made to script.sql before migrations were versioned, for databases created with the original script.
+
+-- Optional session capacity and the count of taken seats maintained by the join and leave statements
+ALTER TABLE `SESSIONS`
+  ADD COLUMN `capacity` INT AFTER `teacher_id`,
+  ADD COLUMN `participant_count` INT NOT NULL DEFAULT 0 AFTER `capacity`;
+
+-- Millisecond timestamps: conditional GETs compare updated_at, which must change on every write
+ALTER TABLE `TEACHERS`
+  MODIFY `updated_at` DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+ALTER TABLE `SESSIONS`
+  MODIFY `updated_at` DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+
+-- The unconstrained table may hold the same participation more than once; keep a single row of each pair
+CREATE TABLE `PARTICIPATE_DISTINCT` AS SELECT DISTINCT `user_id`, `session_id` FROM `PARTICIPATE`;
+DELETE FROM `PARTICIPATE`;
+INSERT INTO `PARTICIPATE` (`user_id`, `session_id`) SELECT `user_id`, `session_id` FROM `PARTICIPATE_DISTINCT`;
+DROP TABLE `PARTICIPATE_DISTINCT`;
+
+ALTER TABLE `PARTICIPATE` ADD UNIQUE KEY `UK_PARTICIPATE_SESSION_USER` (`session_id`, `user_id`);
+
+-- Seats already taken before participant_count existed
+UPDATE `SESSIONS` SET `participant_count` =
+  (SELECT COUNT(*) FROM `PARTICIPATE` p WHERE p.`session_id` = `SESSIONS`.`id` AND p.`user_id` IS NOT NULL);
@@ -0,0 +1,17 @@
+-- PARTICIPATE becomes a clustered table keyed by (session_id, user_id): loading the participants of a session and the
+-- membership check read one contiguous range of the primary key instead of going through a secondary index.
+DELETE FROM `PARTICIPATE` WHERE `session_id` IS NULL OR `user_id` IS NULL;
+
+ALTER TABLE `PARTICIPATE`
+  MODIFY `session_id` INT NOT NULL,
+  MODIFY `user_id` INT NOT NULL,
+  ADD PRIMARY KEY (`session_id`, `user_id`);
+
+ALTER TABLE `PARTICIPATE` DROP INDEX `UK_PARTICIPATE_SESSION_USER`;
+
+-- Sessions of a user. Also backs the user_id foreign key, whose implicit index MySQL then drops.
+CREATE INDEX `IDX_PARTICIPATE_USER` ON `PARTICIPATE` (`user_id`);
+
+-- Keyset pagination filters and orders by (date, id). InnoDB would append id anyway; naming it keeps the index usable
+-- for the ORDER BY on other engines.
+CREATE INDEX `IDX_SESSIONS_DATE` ON `SESSIONS` (`date`, `id`);
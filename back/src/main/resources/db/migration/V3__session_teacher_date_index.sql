@@ -0,0 +1,3 @@
+-- Session search by teacher reads one (date, id) ordered range per teacher. Also backs the teacher_id foreign key,
+-- whose implicit index MySQL then drops.
+CREATE INDEX `IDX_SESSIONS_TEACHER_DATE` ON `SESSIONS` (`teacher_id`, `date`, `id`);
@@ -0,0 +1,7 @@
+-- Session ids come from a pooled-lo table generator so that Hibernate can batch inserts. The next free id starts after
+-- the existing rows; the AUTO_INCREMENT column stays for rows inserted outside Hibernate.
+CREATE TABLE `SESSIONS_SEQ` (
+  `next_val` BIGINT NOT NULL
+);
+
+INSERT INTO `SESSIONS_SEQ` (`next_val`) SELECT COALESCE(MAX(`id`), 0) + 1 FROM `SESSIONS`;
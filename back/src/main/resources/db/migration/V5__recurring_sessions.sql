@@ -0,0 +1,27 @@
+-- Recurring session templates. Their occurrences are expanded on read; an occurrence is stored in SESSIONS, linked
+-- by recurring_session_id, only once someone joins it. The unique key makes that materialization idempotent.
+CREATE TABLE `RECURRING_SESSIONS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `name` VARCHAR(50),
+  `description` VARCHAR(2000),
+  `teacher_id` INT,
+  `capacity` INT,
+  `starts_at` DATETIME NOT NULL,
+  `ends_on` DATE,
+  `interval_weeks` INT NOT NULL DEFAULT 1,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)
+);
+
+CREATE TABLE `RECURRING_SESSION_EXCEPTIONS` (
+  `recurring_session_id` INT NOT NULL,
+  `occurrence_date` DATE NOT NULL,
+  PRIMARY KEY (`recurring_session_id`, `occurrence_date`)
+);
+
+ALTER TABLE `RECURRING_SESSIONS` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+ALTER TABLE `RECURRING_SESSION_EXCEPTIONS` ADD FOREIGN KEY (`recurring_session_id`) REFERENCES `RECURRING_SESSIONS` (`id`);
+
+ALTER TABLE `SESSIONS` ADD COLUMN `recurring_session_id` INT;
+ALTER TABLE `SESSIONS` ADD CONSTRAINT `UK_SESSIONS_OCCURRENCE` UNIQUE (`recurring_session_id`, `date`);
+ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`recurring_session_id`) REFERENCES `RECURRING_SESSIONS` (`id`);
@@ -0,0 +1,6 @@
+-- Session ids are only taken from SESSIONS_SEQ: an AUTO_INCREMENT id handed out outside Hibernate could fall inside a
+-- block already allocated by the pooled-lo generator and make a later batch insert fail. A row inserted by hand must
+-- reserve its id from SESSIONS_SEQ. MySQL refuses to change a referenced column while foreign keys are checked.
+SET FOREIGN_KEY_CHECKS = 0;
+ALTER TABLE `SESSIONS` MODIFY `id` INT NOT NULL;
+SET FOREIGN_KEY_CHECKS = 1;
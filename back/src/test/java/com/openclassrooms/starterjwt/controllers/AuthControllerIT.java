@@ -11,11 +11,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -110,4 +112,25 @@ public class AuthControllerIT {
         .andExpect(status().isBadRequest())
         .andExpect(content().string("{\"message\":\"Error: Email is already taken!\"}"));
   }
+
+  @Test
+  public void testAuthenticateUser_RehashesLegacyPassword() throws Exception {
+    // Hash stored before the {bcrypt} prefix, at a lower cost than configured
+    User user = new User("legacy@example.com", "Doe", "John", new BCryptPasswordEncoder(4).encode("password"), false);
+    userRepository.save(user);
+
+    LoginRequest loginRequest = new LoginRequest();
+    loginRequest.setEmail("legacy@example.com");
+    loginRequest.setPassword("password");
+
+    mockMvc.perform(post("/api/auth/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(loginRequest)))
+        .andExpect(status().isOk());
+
+    String stored = userRepository.findByEmail("legacy@example.com").get().getPassword();
+    assertTrue(stored.startsWith("{bcrypt}$2a$10$"));
+    assertTrue(passwordEncoder.matches("password", stored));
+    assertEquals(false, passwordEncoder.upgradeEncoding(stored));
+  }
 }
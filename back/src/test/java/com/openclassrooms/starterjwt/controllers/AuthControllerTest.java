@@ -22,11 +22,12 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -80,9 +81,6 @@ public class AuthControllerTest {
     when(authenticationManager.authenticate(any())).thenReturn(authentication);
     when(jwtUtils.generateJwtToken(any())).thenReturn("testJwtToken");
 
-    User user = new User("test@example.com", "Doe", "John", "password", false);
-    when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
-
     mockMvc.perform(post("/api/auth/login")
         .contentType(MediaType.APPLICATION_JSON)
         .content(objectMapper.writeValueAsString(loginRequest)))
@@ -95,12 +93,12 @@ public class AuthControllerTest {
         .andExpect(jsonPath("$.admin").value(false));
 
     // Test case 2: Admin user login
-    User adminUser = new User("admin@example.com", "Admin", "Super", "adminpass", true);
     UserDetailsImpl adminDetails = UserDetailsImpl.builder()
         .id(2L)
         .username("admin@example.com")
         .firstName("Super")
         .lastName("Admin")
+        .admin(true)
         .password("adminpass")
         .build();
 
@@ -108,20 +106,19 @@ public class AuthControllerTest {
     loginRequest.setPassword("adminpass");
 
     when(authentication.getPrincipal()).thenReturn(adminDetails);
-    when(userRepository.findByEmail("admin@example.com")).thenReturn(Optional.of(adminUser));
 
     mockMvc.perform(post("/api/auth/login")
         .contentType(MediaType.APPLICATION_JSON)
         .content(objectMapper.writeValueAsString(loginRequest)))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.admin").value(true));
+    verify(userRepository, never()).findByEmail(any());
 
-    // Test case 3: User not found in repository
+    // Test case 3: Unknown user
     LoginRequest nonExistentUserRequest = new LoginRequest();
     nonExistentUserRequest.setEmail("nonexistent@example.com");
     nonExistentUserRequest.setPassword("password");
 
-    when(userRepository.findByEmail("nonexistent@example.com")).thenReturn(Optional.empty());
     when(authenticationManager.authenticate(any()))
         .thenThrow(new BadCredentialsException("Invalid credentials"));
 
@@ -171,7 +168,7 @@ public class AuthControllerTest {
   }
 
   @Test
-  public void testAuthenticateUser_UserNotFoundInRepository() throws Exception {
+  public void testAuthenticateUser_PrincipalWithoutAdminFlag() throws Exception {
     LoginRequest loginRequest = new LoginRequest();
     loginRequest.setEmail("notfound@example.com");
     loginRequest.setPassword("password");
@@ -188,7 +185,6 @@ public class AuthControllerTest {
     when(authentication.getPrincipal()).thenReturn(userDetails);
     when(authenticationManager.authenticate(any())).thenReturn(authentication);
     when(jwtUtils.generateJwtToken(any())).thenReturn("testJwtToken");
-    when(userRepository.findByEmail("notfound@example.com")).thenReturn(Optional.empty());
 
     mockMvc.perform(post("/api/auth/login")
         .contentType(MediaType.APPLICATION_JSON)
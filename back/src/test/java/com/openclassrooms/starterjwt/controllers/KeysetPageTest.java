@@ -0,0 +1,26 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPageTest {
+
+  @Test
+  void testExtraRowIsDroppedAndGivesTheCursor() {
+    KeysetPage<Integer> page = KeysetPage.of(Arrays.asList(1, 2, 3), 2, String::valueOf);
+
+    assertEquals(Arrays.asList(1, 2), page.getItems());
+    assertEquals("2", page.getNextCursor());
+  }
+
+  @Test
+  void testLastPageHasNoCursor() {
+    KeysetPage<Integer> page = KeysetPage.of(Arrays.asList(1, 2), 2, String::valueOf);
+
+    assertEquals(Arrays.asList(1, 2), page.getItems());
+    assertNull(page.getNextCursor());
+  }
+}
@@ -0,0 +1,277 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.RecurringSessionDto;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.RecurringSessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class RecurringSessionControllerIT {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private RecurringSessionRepository recurringSessionRepository;
+
+  @Autowired
+  private SessionRepository sessionRepository;
+
+  @Autowired
+  private TeacherRepository teacherRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private SessionService sessionService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private Teacher testTeacher;
+  private User testUser;
+  private User otherUser;
+  private LocalDate firstDay;
+
+  @BeforeEach
+  void setUp() {
+    sessionRepository.deleteAll();
+    recurringSessionRepository.deleteAll();
+    teacherRepository.deleteAll();
+    userRepository.deleteAll();
+
+    testTeacher = teacherRepository.save(Teacher.builder().lastName("Doe").firstName("John").build());
+    testUser = userRepository.save(new User("recurring@example.com", "User", "Test", "password", false));
+    otherUser = userRepository.save(new User("other@example.com", "User", "Other", "password", false));
+    firstDay = LocalDate.now().plusDays(1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    sessionRepository.deleteAll();
+    recurringSessionRepository.deleteAll();
+  }
+
+  @Test
+  @WithMockUser
+  void testOccurrencesAreListedThenStoredOnceJoined() throws Exception {
+    long id = createWeekly();
+
+    mockMvc.perform(get("/api/session/search").param("teacherId", testTeacher.getId().toString()).param("size", "3"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sessions.length()").value(3))
+        .andExpect(jsonPath("$.sessions[0].id").doesNotExist())
+        .andExpect(jsonPath("$.sessions[0].recurringSessionId").value(id))
+        .andExpect(jsonPath("$.sessions[0].name").value("Morning flow"))
+        .andExpect(jsonPath("$.sessions[2].recurringSessionId").value(id));
+    assertEquals(0, sessionRepository.count());
+
+    JsonNode joined = participate(id, firstDay, testUser);
+    long sessionId = joined.get("id").asLong();
+    assertEquals(id, joined.get("recurringSessionId").asLong());
+    assertEquals(testUser.getId(), joined.get("users").get(0).asLong());
+
+    // A second participant joins the same stored session
+    assertEquals(sessionId, participate(id, firstDay, otherUser).get("id").asLong());
+    assertEquals(1, sessionRepository.count());
+
+    mockMvc.perform(get("/api/session").param("size", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sessions[0].id").value(sessionId))
+        .andExpect(jsonPath("$.sessions[0].users.length()").value(2))
+        .andExpect(jsonPath("$.sessions[1].id").doesNotExist())
+        .andExpect(jsonPath("$.sessions[1].recurringSessionId").value(id));
+  }
+
+  @Test
+  @WithMockUser
+  void testCancelledOccurrenceIsNoLongerListed() throws Exception {
+    long id = createWeekly();
+    participate(id, firstDay, testUser);
+
+    mockMvc.perform(post("/api/recurring-session/{id}/exceptions/{date}", id, firstDay.plusDays(1)))
+        .andExpect(status().isNotFound());
+    mockMvc.perform(post("/api/recurring-session/{id}/exceptions/{date}", id, firstDay.plusWeeks(1)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.exceptions[0]").value(firstDay.plusWeeks(1).toString()));
+
+    String response = mockMvc.perform(get("/api/session/search").param("from", firstDay.plusDays(1).toString())
+            .param("size", "1"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    JsonNode next = objectMapper.readTree(response).get("sessions").get(0).get("date");
+    assertEquals(occurrenceDate(firstDay.plusWeeks(2)), objectMapper.convertValue(next, Date.class));
+  }
+
+  @Test
+  @WithMockUser
+  void testCancelledJoinedOccurrenceIsNoLongerListed() throws Exception {
+    long id = createWeekly();
+    long sessionId = participate(id, firstDay, testUser).get("id").asLong();
+
+    mockMvc.perform(post("/api/recurring-session/{id}/exceptions/{date}", id, firstDay))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.exceptions[0]").value(firstDay.toString()));
+
+    assertFalse(sessionRepository.existsById(sessionId));
+    assertFirstListedOn(firstDay.plusWeeks(1));
+  }
+
+  @Test
+  @WithMockUser
+  void testDeletedStoredOccurrenceIsNoLongerListed() throws Exception {
+    long id = createWeekly();
+    long sessionId = participate(id, firstDay, testUser).get("id").asLong();
+    mockMvc.perform(delete("/api/session/{id}/participate/{userId}", sessionId, testUser.getId()))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(delete("/api/session/{id}", sessionId))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(get("/api/recurring-session/{id}", id))
+        .andExpect(jsonPath("$.exceptions[0]").value(firstDay.toString()));
+    assertFirstListedOn(firstDay.plusWeeks(1));
+  }
+
+  @Test
+  @WithMockUser
+  void testDeleteKeepsStoredOccurrences() throws Exception {
+    long id = createWeekly();
+    long sessionId = participate(id, firstDay, testUser).get("id").asLong();
+
+    mockMvc.perform(delete("/api/recurring-session/{id}", id))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(get("/api/recurring-session/{id}", id))
+        .andExpect(status().isNotFound());
+    mockMvc.perform(get("/api/session/search").param("size", "5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sessions.length()").value(1))
+        .andExpect(jsonPath("$.sessions[0].id").value(sessionId))
+        .andExpect(jsonPath("$.sessions[0].recurringSessionId").doesNotExist());
+    Session stored = sessionRepository.findById(sessionId).orElseThrow(AssertionError::new);
+    assertNull(stored.getRecurringSessionId());
+  }
+
+  @Test
+  @WithMockUser
+  void testFindAllAndFindById() throws Exception {
+    long id = createWeekly();
+
+    mockMvc.perform(get("/api/recurring-session"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id").value(id))
+        .andExpect(jsonPath("$[0].teacher_id").value(testTeacher.getId()));
+    mockMvc.perform(get("/api/recurring-session/{id}", id))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.intervalWeeks").value(1));
+  }
+
+  @Test
+  @WithMockUser
+  void testCreateEndingBeforeItStartsIsRejected() throws Exception {
+    RecurringSessionDto recurringSessionDto = weekly();
+    recurringSessionDto.setEndsOn(firstDay.minusDays(1));
+
+    mockMvc.perform(post("/api/recurring-session")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(recurringSessionDto)))
+        .andExpect(status().isBadRequest());
+    assertEquals(0, recurringSessionRepository.count());
+  }
+
+  @Test
+  @WithMockUser
+  void testFailedJoinLeavesNoStoredOccurrence() throws Exception {
+    long id = createWeekly();
+    long unknownUserId = otherUser.getId() + 1000;
+
+    assertThrows(NotFoundException.class, () -> sessionService.participateInOccurrence(id, firstDay, unknownUserId));
+    assertEquals(0, sessionRepository.count());
+  }
+
+  @Test
+  @WithMockUser
+  void testParticipateOnADayWithoutOccurrenceReturnsNotFound() throws Exception {
+    long id = createWeekly();
+
+    mockMvc.perform(post("/api/recurring-session/{id}/occurrences/{date}/participate/{userId}",
+            id, firstDay.plusDays(3), testUser.getId()))
+        .andExpect(status().isNotFound());
+    assertEquals(0, sessionRepository.count());
+  }
+
+  private long createWeekly() throws Exception {
+    String response = mockMvc.perform(post("/api/recurring-session")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(weekly())))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private RecurringSessionDto weekly() {
+    RecurringSessionDto recurringSessionDto = new RecurringSessionDto();
+    recurringSessionDto.setName("Morning flow");
+    recurringSessionDto.setTeacher_id(testTeacher.getId());
+    recurringSessionDto.setDescription("Every week");
+    recurringSessionDto.setStartsAt(occurrenceDate(firstDay));
+    return recurringSessionDto;
+  }
+
+  private JsonNode participate(long id, LocalDate day, User user) throws Exception {
+    String response = mockMvc.perform(post("/api/recurring-session/{id}/occurrences/{date}/participate/{userId}",
+            id, day, user.getId()))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+
+    return objectMapper.readTree(response);
+  }
+
+  private void assertFirstListedOn(LocalDate day) throws Exception {
+    for (String path : new String[] {"/api/session", "/api/session/search"}) {
+      String response = mockMvc.perform(get(path).param("size", "1"))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString();
+      JsonNode first = objectMapper.readTree(response).get("sessions").get(0);
+      assertTrue(first.path("id").isNull() || first.path("id").isMissingNode(), path);
+      assertEquals(occurrenceDate(day), objectMapper.convertValue(first.get("date"), Date.class), path);
+    }
+  }
+
+  private static Date occurrenceDate(LocalDate day) {
+    return Date.from(LocalDateTime.of(day, LocalTime.of(9, 30)).atZone(ZoneId.systemDefault()).toInstant());
+  }
+}
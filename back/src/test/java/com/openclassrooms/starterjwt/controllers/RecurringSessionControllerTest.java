@@ -0,0 +1,152 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.dto.RecurringSessionDto;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.RecurringSessionMapper;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.RecurringSession;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.RecurringSessionService;
+import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RecurringSessionControllerTest {
+  private static final LocalDate DAY = LocalDate.of(2024, 1, 8);
+
+  @Mock
+  private RecurringSessionService recurringSessionService;
+
+  @Mock
+  private RecurringSessionMapper recurringSessionMapper;
+
+  @Mock
+  private SessionService sessionService;
+
+  @Mock
+  private SessionMapper sessionMapper;
+
+  @Mock
+  private UserService userService;
+
+  @InjectMocks
+  private RecurringSessionController recurringSessionController;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  void testFindByIdReturnsRecurringSession() {
+    RecurringSession recurringSession = new RecurringSession();
+    RecurringSessionDto recurringSessionDto = new RecurringSessionDto();
+    when(recurringSessionService.findById(1L)).thenReturn(recurringSession);
+    when(recurringSessionMapper.toDto(recurringSession)).thenReturn(recurringSessionDto);
+
+    ResponseEntity<?> response = recurringSessionController.findById("1");
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(recurringSessionDto, response.getBody());
+  }
+
+  @Test
+  void testFindByIdNonExistentOrInvalidId() {
+    assertEquals(HttpStatus.NOT_FOUND, recurringSessionController.findById("1").getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, recurringSessionController.findById("invalid").getStatusCode());
+  }
+
+  @Test
+  void testFindAllReturnsAllRecurringSessions() {
+    List<RecurringSession> recurringSessions = Collections.singletonList(new RecurringSession());
+    List<RecurringSessionDto> recurringSessionDtos = Collections.singletonList(new RecurringSessionDto());
+    when(recurringSessionService.findAll()).thenReturn(recurringSessions);
+    when(recurringSessionMapper.toDto(recurringSessions)).thenReturn(recurringSessionDtos);
+
+    ResponseEntity<?> response = recurringSessionController.findAll();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(recurringSessionDtos, response.getBody());
+  }
+
+  @Test
+  void testCreateReturnsCreatedRecurringSession() {
+    RecurringSessionDto recurringSessionDto = new RecurringSessionDto();
+    RecurringSession recurringSession = new RecurringSession();
+    when(recurringSessionMapper.toEntity(recurringSessionDto)).thenReturn(recurringSession);
+    when(recurringSessionService.create(recurringSession)).thenReturn(recurringSession);
+    when(recurringSessionMapper.toDto(recurringSession)).thenReturn(recurringSessionDto);
+
+    ResponseEntity<?> response = recurringSessionController.create(recurringSessionDto);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(recurringSessionDto, response.getBody());
+  }
+
+  @Test
+  void testDelete() {
+    assertEquals(HttpStatus.OK, recurringSessionController.delete("1").getStatusCode());
+    verify(recurringSessionService).delete(1L);
+    assertEquals(HttpStatus.BAD_REQUEST, recurringSessionController.delete("invalid").getStatusCode());
+  }
+
+  @Test
+  void testCancelOccurrence() {
+    RecurringSession recurringSession = new RecurringSession();
+    RecurringSessionDto recurringSessionDto = new RecurringSessionDto();
+    when(recurringSessionService.cancelOccurrence(1L, DAY)).thenReturn(recurringSession);
+    when(recurringSessionMapper.toDto(recurringSession)).thenReturn(recurringSessionDto);
+
+    ResponseEntity<?> response = recurringSessionController.cancelOccurrence("1", DAY);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(recurringSessionDto, response.getBody());
+    assertEquals(HttpStatus.BAD_REQUEST, recurringSessionController.cancelOccurrence("invalid", DAY).getStatusCode());
+  }
+
+  @Test
+  void testParticipateMaterializesTheOccurrenceThenJoinsIt() {
+    Session occurrence = new Session();
+    occurrence.setId(9L);
+    SessionDto sessionDto = new SessionDto();
+    when(userService.findById(2L)).thenReturn(new User());
+    when(sessionService.participateInOccurrence(1L, DAY, 2L)).thenReturn(9L);
+    when(sessionService.getById(9L)).thenReturn(occurrence);
+    when(sessionMapper.toDto(occurrence)).thenReturn(sessionDto);
+
+    ResponseEntity<?> response = recurringSessionController.participate("1", DAY, "2");
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(sessionDto, response.getBody());
+  }
+
+  @Test
+  void testParticipateOfUnknownUserStoresNothing() {
+    ResponseEntity<?> response = recurringSessionController.participate("1", DAY, "2");
+
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    verifyNoInteractions(recurringSessionService, sessionService);
+  }
+
+  @Test
+  void testParticipateWithInvalidIdReturnsBadRequest() {
+    when(userService.findById(2L)).thenReturn(new User());
+
+    assertEquals(HttpStatus.BAD_REQUEST, recurringSessionController.participate("1", DAY, "invalid").getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, recurringSessionController.participate("invalid", DAY, "2").getStatusCode());
+  }
+}
@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.ParticipantIdsDto;
 import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
@@ -19,9 +20,16 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -64,7 +72,7 @@ public class SessionControllerIT {
 
     testUser = userRepository.save(new User("user@example.com", "User", "Test", "password", false));
     testSession = sessionRepository
-        .save(new Session(null, "Test Session", new Date(), "Description", testTeacher, null, null, null));
+        .save(new Session(null, "Test Session", new Date(), "Description", testTeacher, null, null, null, null, null, null));
   }
 
   @Test
@@ -85,6 +93,154 @@ public class SessionControllerIT {
         .andExpect(jsonPath("$[0].name").value("Test Session"));
   }
 
+  @Test
+  @WithMockUser
+  void testFindAllPaginatedWalksTheCatalogInDateOrder() throws Exception {
+    Session earlier = sessionRepository
+        .save(new Session(null, "Earlier Session", new Date(testSession.getDate().getTime() - 60000), "Description",
+            testTeacher, null, null, null, null, null, null));
+    Session later = sessionRepository
+        .save(new Session(null, "Later Session", new Date(testSession.getDate().getTime() + 60000), "Description",
+            testTeacher, null, null, null, null, null, null));
+
+    MvcResult firstPage = mockMvc.perform(get("/api/session").param("size", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sessions.length()").value(2))
+        .andExpect(jsonPath("$.sessions[0].id").value(earlier.getId()))
+        .andExpect(jsonPath("$.sessions[1].id").value(testSession.getId()))
+        .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+        .andReturn();
+
+    String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("nextCursor").asText();
+
+    mockMvc.perform(get("/api/session").param("size", "2").param("cursor", cursor))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sessions.length()").value(1))
+        .andExpect(jsonPath("$.sessions[0].id").value(later.getId()))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @Test
+  @WithMockUser
+  void testFindAllWithMalformedCursorReturnsBadRequest() throws Exception {
+    mockMvc.perform(get("/api/session").param("cursor", "***"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @WithMockUser
+  void testSearchCombinesFilters() throws Exception {
+    Teacher otherTeacher = teacherRepository.save(Teacher.builder().lastName("Roe").firstName("Jane").build());
+    Date tomorrow = new Date(testSession.getDate().getTime() + 86400000L);
+    Session match = sessionRepository.save(
+        new Session(null, "Morning flow", tomorrow, "Gentle 100% vinyasa", otherTeacher, null, 10, null, null, null, null));
+    sessionRepository.save(
+        new Session(null, "Evening flow", tomorrow, "Gentle yin", otherTeacher, null, null, null, null, null, null));
+    sessionService.create(new Session(null, "Full flow", tomorrow, "Gentle 100% vinyasa", otherTeacher,
+        new ArrayList<>(Collections.singletonList(testUser)), 1, null, null, null, null));
+    String day = new SimpleDateFormat("yyyy-MM-dd").format(tomorrow);
+
+    mockMvc.perform(get("/api/session/search")
+            .param("from", day)
+            .param("to", day)
+            .param("teacherId", String.valueOf(otherTeacher.getId()))
+            .param("text", "100%")
+            .param("freeSeats", "true"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sessions.length()").value(1))
+        .andExpect(jsonPath("$.sessions[0].id").value(match.getId()))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @Test
+  @WithMockUser
+  void testSearchPagesThroughMatches() throws Exception {
+    Session later = sessionRepository
+        .save(new Session(null, "Later Session", new Date(testSession.getDate().getTime() + 60000), "Description",
+            testTeacher, null, null, null, null, null, null));
+
+    MvcResult firstPage = mockMvc.perform(get("/api/session/search").param("text", "session").param("size", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sessions[0].id").value(testSession.getId()))
+        .andReturn();
+
+    String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("nextCursor").asText();
+
+    mockMvc.perform(get("/api/session/search").param("text", "session").param("size", "1").param("cursor", cursor))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sessions[0].id").value(later.getId()))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @Test
+  @WithMockUser
+  void testSearchWithReversedDatesReturnsBadRequest() throws Exception {
+    mockMvc.perform(get("/api/session/search").param("from", "2024-02-01").param("to", "2024-01-01"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("from must not be after to"));
+  }
+
+  @Test
+  @WithMockUser
+  void testFindByIdWithoutParticipantsOmitsUsers() throws Exception {
+    sessionService.participate(testSession.getId(), testUser.getId());
+
+    mockMvc.perform(get("/api/session/{id}", testSession.getId()).param("participants", "false"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(testSession.getId()))
+        .andExpect(jsonPath("$.teacher_id").value(testTeacher.getId()))
+        .andExpect(jsonPath("$.users").doesNotExist());
+  }
+
+  @Test
+  @WithMockUser
+  void testParticipantsArePagedInIdOrder() throws Exception {
+    User second = userRepository.save(new User("second@example.com", "Second", "Test", "password", false));
+    sessionService.participate(testSession.getId(), second.getId());
+    sessionService.participate(testSession.getId(), testUser.getId());
+
+    MvcResult firstPage = mockMvc.perform(get("/api/session/{id}/participants", testSession.getId()).param("size", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.participants.length()").value(1))
+        .andExpect(jsonPath("$.participants[0].id").value(testUser.getId()))
+        .andExpect(jsonPath("$.participants[0].password").doesNotExist())
+        .andReturn();
+
+    String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("nextCursor").asText();
+
+    mockMvc.perform(get("/api/session/{id}/participants", testSession.getId()).param("size", "1").param("cursor", cursor))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.participants[0].id").value(second.getId()))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+    mockMvc.perform(get("/api/session/{id}/participants/count", testSession.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.count").value(2));
+  }
+
+  @Test
+  @WithMockUser
+  void testParticipantsOfUnknownSessionReturnNotFound() throws Exception {
+    mockMvc.perform(get("/api/session/{id}/participants", 0))
+        .andExpect(status().isNotFound());
+    mockMvc.perform(get("/api/session/{id}/participants/count", 0))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @WithMockUser
+  void testStreamReturnsNdjson() throws Exception {
+    MvcResult result = mockMvc.perform(get("/api/session").accept(MediaType.APPLICATION_NDJSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string(startsWith("{\"id\":" + testSession.getId() + ",")))
+        .andExpect(content().string(endsWith("}\n")));
+  }
+
   @Test
   @WithMockUser
   void testCreate() throws Exception {
@@ -101,6 +257,37 @@ public class SessionControllerIT {
         .andExpect(jsonPath("$.name").value("New Session"));
   }
 
+  @Test
+  @WithMockUser
+  void testCreateWithUnknownParticipantsReportsThem() throws Exception {
+    SessionDto newSession = new SessionDto();
+    newSession.setName("New Session");
+    newSession.setDate(new Date());
+    newSession.setDescription("New Description");
+    newSession.setTeacher_id(testTeacher.getId());
+    newSession.setUsers(Arrays.asList(testUser.getId(), -1L));
+
+    mockMvc.perform(post("/api/session")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(newSession)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("Unknown user ids: [-1]"));
+  }
+
+  @Test
+  @WithMockUser
+  void testCreateWithMoreParticipantsThanSeatsIsRejected() throws Exception {
+    User other = userRepository.save(new User("other@example.com", "User", "Other", "password", false));
+    SessionDto newSession = new SessionDto(null, "New Session", new Date(), testTeacher.getId(), "New Description",
+        Arrays.asList(testUser.getId(), other.getId()), 1, null, null, null);
+
+    mockMvc.perform(post("/api/session")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(newSession)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("users must not exceed capacity"));
+  }
+
   @Test
   @WithMockUser
   void testUpdate() throws Exception {
@@ -156,4 +343,145 @@ public class SessionControllerIT {
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.users").isEmpty());
   }
+
+  @Test
+  @WithMockUser
+  void testParticipateTwiceIsRejected() throws Exception {
+    mockMvc.perform(post("/api/session/{id}/participate/{userId}", testSession.getId(), testUser.getId()))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(post("/api/session/{id}/participate/{userId}", testSession.getId(), testUser.getId()))
+        .andExpect(status().isBadRequest());
+
+    mockMvc.perform(get("/api/session/{id}", testSession.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.users.length()").value(1));
+  }
+
+  @Test
+  @WithMockUser
+  void testParticipateInUnknownSessionReturnsNotFound() throws Exception {
+    mockMvc.perform(post("/api/session/{id}/participate/{userId}", -1L, testUser.getId()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @WithMockUser
+  void testNoLongerParticipateWhenNotParticipatingIsRejected() throws Exception {
+    mockMvc.perform(delete("/api/session/{id}/participate/{userId}", testSession.getId(), testUser.getId()))
+        .andExpect(status().isBadRequest());
+
+    mockMvc.perform(delete("/api/session/{id}/participate/{userId}", -1L, testUser.getId()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @WithMockUser
+  void testBulkParticipationReportsEveryIdAndKeepsTheSeatCount() throws Exception {
+    testSession.setCapacity(2);
+    sessionRepository.save(testSession);
+    User second = userRepository.save(new User("second@example.com", "User", "Second", "password", false));
+    User third = userRepository.save(new User("third@example.com", "User", "Third", "password", false));
+    sessionService.participate(testSession.getId(), testUser.getId());
+
+    mockMvc.perform(post("/api/session/{id}/participate", testSession.getId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new ParticipantIdsDto(
+            Arrays.asList(testUser.getId(), second.getId(), third.getId(), -1L)))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].status").value("ALREADY_PARTICIPATING"))
+        .andExpect(jsonPath("$[1].userId").value(second.getId()))
+        .andExpect(jsonPath("$[1].status").value("ADDED"))
+        .andExpect(jsonPath("$[2].status").value("SESSION_FULL"))
+        .andExpect(jsonPath("$[3].status").value("UNKNOWN_USER"));
+
+    mockMvc.perform(get("/api/session/{id}/participants/count", testSession.getId()))
+        .andExpect(jsonPath("$.count").value(2));
+
+    mockMvc.perform(delete("/api/session/{id}/participate", testSession.getId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new ParticipantIdsDto(
+            Arrays.asList(second.getId(), third.getId())))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].status").value("REMOVED"))
+        .andExpect(jsonPath("$[1].status").value("NOT_PARTICIPATING"));
+
+    mockMvc.perform(get("/api/session/{id}/participants", testSession.getId()))
+        .andExpect(jsonPath("$.participants.length()").value(1))
+        .andExpect(jsonPath("$.participants[0].id").value(testUser.getId()));
+    mockMvc.perform(get("/api/session/{id}/participants/count", testSession.getId()))
+        .andExpect(jsonPath("$.count").value(1));
+  }
+
+  @Test
+  @WithMockUser
+  void testBulkParticipationRejectsUnknownSessionAndMissingIds() throws Exception {
+    mockMvc.perform(post("/api/session/{id}/participate", -1L)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new ParticipantIdsDto(Collections.singletonList(testUser.getId())))))
+        .andExpect(status().isNotFound());
+
+    mockMvc.perform(post("/api/session/{id}/participate", testSession.getId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{}"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @WithMockUser
+  void testCreateAllFromJsonAndCsv() throws Exception {
+    SessionDto morning = new SessionDto(null, "Morning", new Date(), testTeacher.getId(), "Description",
+        Collections.singletonList(testUser.getId()), null, null, null, null);
+    SessionDto evening = new SessionDto(null, "Evening", new Date(), testTeacher.getId(), "Description",
+        null, 5, null, null, null);
+
+    MvcResult result = mockMvc.perform(post("/api/session/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Arrays.asList(morning, evening))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2))
+        .andExpect(jsonPath("$[0].id").isNumber())
+        .andExpect(jsonPath("$[1].capacity").value(5))
+        .andReturn();
+    long morningId = objectMapper.readTree(result.getResponse().getContentAsString()).get(0).get("id").asLong();
+
+    mockMvc.perform(get("/api/session/{id}/participants/count", morningId))
+        .andExpect(jsonPath("$.count").value(1));
+
+    mockMvc.perform(post("/api/session/batch")
+        .contentType("text/csv")
+        .content("name,date,teacher_id,description,users\n"
+            + "Yin,2026-01-15T09:00:00Z," + testTeacher.getId() + ",\"Slow, calm\"," + testUser.getId() + "\n"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].name").value("Yin"))
+        .andExpect(jsonPath("$[0].description").value("Slow, calm"))
+        .andExpect(jsonPath("$[0].users[0]").value(testUser.getId()));
+
+    mockMvc.perform(get("/api/session"))
+        .andExpect(jsonPath("$.length()").value(4));
+  }
+
+  @Test
+  @WithMockUser
+  void testCreateAllIsAllOrNothing() throws Exception {
+    SessionDto valid = new SessionDto(null, "Valid", new Date(), testTeacher.getId(), "Description",
+        null, null, null, null, null);
+    SessionDto unknownUser = new SessionDto(null, "Unknown user", new Date(), testTeacher.getId(), "Description",
+        Collections.singletonList(-1L), null, null, null, null);
+
+    mockMvc.perform(post("/api/session/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Arrays.asList(valid, unknownUser))))
+        .andExpect(status().isBadRequest());
+
+    mockMvc.perform(post("/api/session/batch")
+        .contentType("text/csv")
+        .content("name,date,teacher_id,description\nValid,2026-01-15T09:00:00Z," + testTeacher.getId() + ",D\n"
+            + ",2026-01-15T09:00:00Z," + testTeacher.getId() + ",D\n"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("Session 2: name must not be blank"));
+
+    mockMvc.perform(get("/api/session"))
+        .andExpect(jsonPath("$.length()").value(1));
+  }
 }
@@ -1,19 +1,48 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.CountDto;
+import com.openclassrooms.starterjwt.dto.ParticipantIdsDto;
+import com.openclassrooms.starterjwt.dto.ParticipantPageDto;
+import com.openclassrooms.starterjwt.dto.ParticipationResultDto;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPageDto;
+import com.openclassrooms.starterjwt.dto.UserDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.ResourceVersion;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionSearch;
 import com.openclassrooms.starterjwt.services.SessionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,12 +54,81 @@ class SessionControllerTest {
   @Mock
   private SessionMapper sessionMapper;
 
+  @Mock
+  private UserMapper userMapper;
+
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper();
+
+  @Spy
+  private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
   @InjectMocks
   private SessionController sessionController;
 
+  private MockHttpServletRequest request;
+
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
+    request = new MockHttpServletRequest("GET", "/api/session");
+  }
+
+  @Test
+  void testFindByIdSetsValidators() {
+    Session session = new Session();
+    session.setId(1L);
+    session.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+    when(sessionService.getById(1L)).thenReturn(session);
+    when(sessionMapper.toDto(session)).thenReturn(new SessionDto());
+
+    ResponseEntity<?> response = sessionController.findById("1", true, request);
+
+    ResourceVersion version = ResourceVersion.ofEntity(1L, session.getUpdatedAt());
+    assertEquals("\"" + version.getETag() + "\"", response.getHeaders().getETag());
+    assertEquals(version.getLastModifiedMillis(), response.getHeaders().getLastModified());
+    verify(sessionService, never()).findVersion(any());
+  }
+
+  @Test
+  void testFindByIdNotModifiedSkipsLoading() {
+    ResourceVersion version = ResourceVersion.ofEntity(1L, LocalDateTime.of(2024, 1, 1, 10, 0));
+    when(sessionService.findVersion(1L)).thenReturn(version);
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + version.getETag() + "\"");
+
+    ResponseEntity<?> response = sessionController.findById("1", true, request);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertNull(response.getBody());
+    verify(sessionService, never()).getById(any());
+    verifyNoInteractions(sessionMapper);
+  }
+
+  @Test
+  void testFindByIdStaleValidatorLoadsSession() {
+    Session session = new Session();
+    session.setId(1L);
+    session.setUpdatedAt(LocalDateTime.of(2024, 1, 2, 10, 0));
+    when(sessionService.findVersion(1L)).thenReturn(ResourceVersion.ofEntity(1L, session.getUpdatedAt()));
+    when(sessionService.getById(1L)).thenReturn(session);
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1-0\"");
+
+    ResponseEntity<?> response = sessionController.findById("1", true, request);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    verify(sessionService).getById(1L);
+  }
+
+  @Test
+  void testFindAllNotModifiedSkipsLoading() {
+    ResourceVersion version = new ResourceVersion("3", LocalDateTime.of(2024, 1, 1, 10, 0));
+    when(sessionService.findAllVersion()).thenReturn(version);
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + version.getETag() + "\"");
+
+    ResponseEntity<?> response = sessionController.findAll(null, null, true, request);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    verify(sessionService, never()).findAll(anyBoolean());
   }
 
   @Test
@@ -40,7 +138,7 @@ class SessionControllerTest {
     when(sessionService.getById(1L)).thenReturn(session);
     when(sessionMapper.toDto(session)).thenReturn(sessionDto);
 
-    ResponseEntity<?> response = sessionController.findById("1");
+    ResponseEntity<?> response = sessionController.findById("1", true, request);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals(sessionDto, response.getBody());
@@ -48,7 +146,7 @@ class SessionControllerTest {
 
   @Test
   void testFindByIdInvalidIdReturnsBadRequest() {
-    ResponseEntity<?> response = sessionController.findById("invalid");
+    ResponseEntity<?> response = sessionController.findById("invalid", true, request);
 
     assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
   }
@@ -57,7 +155,7 @@ class SessionControllerTest {
   void testFindByIdNonExistentIdReturnsNotFound() {
     when(sessionService.getById(1L)).thenReturn(null);
 
-    ResponseEntity<?> response = sessionController.findById("1");
+    ResponseEntity<?> response = sessionController.findById("1", true, request);
 
     assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
   }
@@ -66,15 +164,204 @@ class SessionControllerTest {
   void testFindAllReturnsAllSessions() {
     List<Session> sessions = Arrays.asList(new Session(), new Session());
     List<SessionDto> sessionDtos = Arrays.asList(new SessionDto(), new SessionDto());
-    when(sessionService.findAll()).thenReturn(sessions);
+    when(sessionService.findAll(true)).thenReturn(sessions);
     when(sessionMapper.toDto(sessions)).thenReturn(sessionDtos);
 
-    ResponseEntity<?> response = sessionController.findAll();
+    ResponseEntity<?> response = sessionController.findAll(null, null, true, request);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals(sessionDtos, response.getBody());
   }
 
+  @Test
+  void testFindAllWithSizeReturnsFirstPageAndNextCursor() {
+    Session first = session(1L, 1000L);
+    Session second = session(2L, 2000L);
+    Session third = session(3L, 3000L);
+    List<SessionDto> sessionDtos = Arrays.asList(new SessionDto(), new SessionDto());
+    when(sessionService.search(any(SessionSearch.class), isNull(), eq(3), eq(true))).thenReturn(new ArrayList<>(Arrays.asList(first, second, third)));
+    when(sessionMapper.toDto(Arrays.asList(first, second))).thenReturn(sessionDtos);
+
+    ResponseEntity<?> response = sessionController.findAll(null, 2, true, request);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    SessionPageDto page = (SessionPageDto) response.getBody();
+    assertEquals(sessionDtos, page.getSessions());
+    assertEquals(SessionCursor.of(second).encode(), page.getNextCursor());
+  }
+
+  @Test
+  void testFindAllWithCursorReturnsLastPage() {
+    SessionCursor cursor = new SessionCursor(new Date(2000L), 2L);
+    Session third = session(3L, 3000L);
+    List<SessionDto> sessionDtos = Collections.singletonList(new SessionDto());
+    when(sessionService.search(any(SessionSearch.class), eq(cursor), eq(SessionController.DEFAULT_PAGE_SIZE + 1),
+        eq(true)))
+        .thenReturn(Collections.singletonList(third));
+    when(sessionMapper.toDto(Collections.singletonList(third))).thenReturn(sessionDtos);
+
+    ResponseEntity<?> response = sessionController.findAll(cursor.encode(), null, true, request);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    SessionPageDto page = (SessionPageDto) response.getBody();
+    assertEquals(sessionDtos, page.getSessions());
+    assertNull(page.getNextCursor());
+  }
+
+  @Test
+  void testFindAllWithOutOfRangeSizeReturnsBadRequest() {
+    assertEquals(HttpStatus.BAD_REQUEST, sessionController.findAll(null, 0, true, request).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST,
+        sessionController.findAll(null, SessionController.MAX_PAGE_SIZE + 1, true, request).getStatusCode());
+    verifyNoInteractions(sessionService);
+  }
+
+  @Test
+  void testFindAllWithMalformedCursorThrowsBadRequest() {
+    assertThrows(BadRequestException.class, () -> sessionController.findAll("not-a-cursor", 10, true, request));
+  }
+
+  @Test
+  void testSearchReturnsPageAfterCursor() {
+    SessionSearch search = new SessionSearch();
+    search.setTeacherId(4L);
+    SessionCursor cursor = new SessionCursor(new Date(1000L), 1L);
+    Session second = session(2L, 2000L);
+    Session third = session(3L, 3000L);
+    List<SessionDto> sessionDtos = Collections.singletonList(new SessionDto());
+    when(sessionService.search(search, cursor, 2, true)).thenReturn(new ArrayList<>(Arrays.asList(second, third)));
+    when(sessionMapper.toDto(Collections.singletonList(second))).thenReturn(sessionDtos);
+
+    ResponseEntity<?> response = sessionController.search(search, cursor.encode(), 1, true);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    SessionPageDto page = (SessionPageDto) response.getBody();
+    assertEquals(sessionDtos, page.getSessions());
+    assertEquals(SessionCursor.of(second).encode(), page.getNextCursor());
+  }
+
+  @Test
+  void testSearchWithOutOfRangeSizeReturnsBadRequest() {
+    assertEquals(HttpStatus.BAD_REQUEST, sessionController.search(new SessionSearch(), null, 0, true).getStatusCode());
+    verifyNoInteractions(sessionService);
+  }
+
+  @Test
+  void testFindByIdWithoutParticipantsLoadsSummary() {
+    Session session = session(1L, 1000L);
+    session.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+    SessionDto summary = new SessionDto();
+    when(sessionService.getSummaryById(1L)).thenReturn(session);
+    when(sessionMapper.toSummaryDto(session)).thenReturn(summary);
+
+    ResponseEntity<?> response = sessionController.findById("1", false, request);
+
+    assertEquals(summary, response.getBody());
+    ResourceVersion version = ResourceVersion.ofEntity(1L, session.getUpdatedAt()).withVariant("summary");
+    assertEquals("\"" + version.getETag() + "\"", response.getHeaders().getETag());
+    verify(sessionService, never()).getById(any());
+    verify(sessionMapper, never()).toDto(any(Session.class));
+  }
+
+  @Test
+  void testFindAllWithoutParticipantsMapsSummaries() {
+    List<Session> sessions = Collections.singletonList(session(1L, 1000L));
+    List<SessionDto> summaries = Collections.singletonList(new SessionDto());
+    when(sessionService.findAll(false)).thenReturn(sessions);
+    when(sessionMapper.toSummaryDto(sessions)).thenReturn(summaries);
+
+    ResponseEntity<?> response = sessionController.findAll(null, null, false, request);
+
+    assertEquals(summaries, response.getBody());
+  }
+
+  @Test
+  void testFindParticipantsReturnsPageAndNextCursor() {
+    User first = new User();
+    first.setId(4L);
+    User second = new User();
+    second.setId(7L);
+    List<UserDto> userDtos = Collections.singletonList(new UserDto());
+    when(sessionService.findParticipants(1L, 2L, 2)).thenReturn(new ArrayList<>(Arrays.asList(first, second)));
+    when(userMapper.toDto(Collections.singletonList(first))).thenReturn(userDtos);
+
+    ResponseEntity<?> response = sessionController.findParticipants("1", "2", 1);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    ParticipantPageDto page = (ParticipantPageDto) response.getBody();
+    assertEquals(userDtos, page.getParticipants());
+    assertEquals("4", page.getNextCursor());
+  }
+
+  @Test
+  void testFindParticipantsLastPageHasNoCursor() {
+    when(sessionService.findParticipants(1L, null, SessionController.DEFAULT_PAGE_SIZE + 1))
+        .thenReturn(new ArrayList<>());
+
+    ResponseEntity<?> response = sessionController.findParticipants("1", null, null);
+
+    assertNull(((ParticipantPageDto) response.getBody()).getNextCursor());
+  }
+
+  @Test
+  void testFindParticipantsWithInvalidArgumentsReturnsBadRequest() {
+    assertEquals(HttpStatus.BAD_REQUEST, sessionController.findParticipants("1", "x", 10).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, sessionController.findParticipants("x", null, 10).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, sessionController.findParticipants("1", null, 0).getStatusCode());
+    verifyNoInteractions(sessionService);
+  }
+
+  @Test
+  void testCountParticipants() {
+    when(sessionService.countParticipants(1L)).thenReturn(3);
+
+    ResponseEntity<?> response = sessionController.countParticipants("1");
+
+    assertEquals(3, ((CountDto) response.getBody()).getCount());
+    assertEquals(HttpStatus.BAD_REQUEST, sessionController.countParticipants("x").getStatusCode());
+  }
+
+  @Test
+  void testStreamWritesOneJsonLinePerSession() throws Exception {
+    Session first = session(1L, 1000L);
+    Session second = session(2L, 2000L);
+    SessionDto firstDto = new SessionDto();
+    firstDto.setId(1L);
+    SessionDto secondDto = new SessionDto();
+    secondDto.setId(2L);
+    when(sessionService.findPage(null, SessionController.STREAM_CHUNK_SIZE, true)).thenReturn(Arrays.asList(first, second));
+    when(sessionMapper.toDto(first)).thenReturn(firstDto);
+    when(sessionMapper.toDto(second)).thenReturn(secondDto);
+
+    ResponseEntity<StreamingResponseBody> response = sessionController.stream();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+
+    assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+    String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+    assertEquals(2, lines.length);
+    assertEquals(1L, objectMapper.readValue(lines[0], SessionDto.class).getId());
+    assertEquals(2L, objectMapper.readValue(lines[1], SessionDto.class).getId());
+    verify(sessionService, times(1)).findPage(any(), anyInt(), anyBoolean());
+  }
+
+  @Test
+  void testStreamFetchesNextChunkAfterFullChunk() throws Exception {
+    List<Session> fullChunk = new ArrayList<>();
+    for (long i = 1; i <= SessionController.STREAM_CHUNK_SIZE; i++) {
+      fullChunk.add(session(i, i * 1000L));
+    }
+    Session last = fullChunk.get(fullChunk.size() - 1);
+    when(sessionService.findPage(null, SessionController.STREAM_CHUNK_SIZE, true)).thenReturn(fullChunk);
+    when(sessionService.findPage(SessionCursor.of(last), SessionController.STREAM_CHUNK_SIZE, true))
+        .thenReturn(Collections.emptyList());
+    when(sessionMapper.toDto(any(Session.class))).thenReturn(new SessionDto());
+
+    sessionController.stream().getBody().writeTo(new ByteArrayOutputStream());
+
+    verify(sessionService).findPage(SessionCursor.of(last), SessionController.STREAM_CHUNK_SIZE, true);
+  }
+
   @Test
   void testFindCreateValidSessionReturnsCreatedSession() {
     SessionDto inputDto = new SessionDto();
@@ -169,4 +456,101 @@ class SessionControllerTest {
 
     assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
   }
+
+  @Test
+  void testParticipateAllReturnsOutcomesInOrder() {
+    Map<Long, ParticipationStatus> outcomes = new LinkedHashMap<>();
+    outcomes.put(3L, ParticipationStatus.ADDED);
+    outcomes.put(2L, ParticipationStatus.SESSION_FULL);
+    when(sessionService.participateAll(1L, Arrays.asList(3L, 2L))).thenReturn(outcomes);
+
+    ResponseEntity<?> response = sessionController.participateAll("1", new ParticipantIdsDto(Arrays.asList(3L, 2L)));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(Arrays.asList(new ParticipationResultDto(3L, ParticipationStatus.ADDED),
+        new ParticipationResultDto(2L, ParticipationStatus.SESSION_FULL)), response.getBody());
+  }
+
+  @Test
+  void testNoLongerParticipateAllReturnsOutcomes() {
+    Map<Long, ParticipationStatus> outcomes = new LinkedHashMap<>();
+    outcomes.put(2L, ParticipationStatus.REMOVED);
+    when(sessionService.noLongerParticipateAll(1L, Collections.singletonList(2L))).thenReturn(outcomes);
+
+    ResponseEntity<?> response = sessionController.noLongerParticipateAll("1",
+        new ParticipantIdsDto(Collections.singletonList(2L)));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(Collections.singletonList(new ParticipationResultDto(2L, ParticipationStatus.REMOVED)),
+        response.getBody());
+  }
+
+  @Test
+  void testBulkParticipationInvalidIdReturnsBadRequest() {
+    ParticipantIdsDto body = new ParticipantIdsDto(Collections.singletonList(2L));
+
+    assertEquals(HttpStatus.BAD_REQUEST, sessionController.participateAll("invalid", body).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, sessionController.noLongerParticipateAll("invalid", body).getStatusCode());
+  }
+
+  @Test
+  void testCreateAllInsertsEverySessionAtOnce() {
+    List<SessionDto> dtos = Arrays.asList(validDto("Morning"), validDto("Evening"));
+    List<Session> entities = Arrays.asList(new Session(), new Session());
+    List<Session> created = Arrays.asList(session(1L, 1000L), session(2L, 2000L));
+    List<SessionDto> createdDtos = new ArrayList<>();
+    when(sessionMapper.toNewEntities(dtos)).thenReturn(entities);
+    when(sessionService.createAll(entities)).thenReturn(created);
+    when(sessionMapper.toDto(created)).thenReturn(createdDtos);
+
+    ResponseEntity<?> response = sessionController.createAll(dtos);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertSame(createdDtos, response.getBody());
+  }
+
+  @Test
+  void testCreateAllFromCsvReadsTheSameFields() {
+    when(sessionMapper.toNewEntities(anyList())).thenReturn(new ArrayList<>());
+
+    sessionController.createAllFromCsv("name,date,teacher_id,description\nFlow,2026-01-15T09:00:00Z,1,Calm\n");
+
+    verify(sessionMapper).toNewEntities(argThat(dtos -> dtos.size() == 1 && "Flow".equals(dtos.get(0).getName())));
+  }
+
+  @Test
+  void testCreateAllRejectsInvalidSessionWithItsPosition() {
+    SessionDto invalid = validDto("Evening");
+    invalid.setTeacher_id(null);
+
+    BadRequestException e = assertThrows(BadRequestException.class,
+        () -> sessionController.createAll(Arrays.asList(validDto("Morning"), invalid)));
+
+    assertEquals("Session 2: teacher_id must not be null", e.getMessage());
+    verify(sessionService, never()).createAll(any());
+  }
+
+  @Test
+  void testCreateAllRejectsMissingSessionsAndOversizedBatches() {
+    assertThrows(BadRequestException.class, () -> sessionController.createAll(Collections.singletonList(null)));
+    assertThrows(BadRequestException.class, () -> sessionController.createAll(
+        Collections.nCopies(SessionController.MAX_BATCH_SIZE + 1, validDto("Flow"))));
+    verify(sessionService, never()).createAll(any());
+  }
+
+  private Session session(Long id, long time) {
+    Session session = new Session();
+    session.setId(id);
+    session.setDate(new Date(time));
+    return session;
+  }
+
+  private SessionDto validDto(String name) {
+    SessionDto dto = new SessionDto();
+    dto.setName(name);
+    dto.setDate(new Date());
+    dto.setTeacher_id(1L);
+    dto.setDescription("Description");
+    return dto;
+  }
 }
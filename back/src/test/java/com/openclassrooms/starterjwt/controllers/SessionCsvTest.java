@@ -0,0 +1,72 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionCsvTest {
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void testReadConvertsEveryColumn() {
+    List<SessionDto> sessions = SessionCsv.read("name,date,teacher_id,description,capacity,users\r\n"
+        + "Morning,2026-01-15T09:00:00Z,1,Sun salutation,12,3;4\r\n"
+        + "Evening,1768503600000,2,\"Slow, calm\",,\n", objectMapper);
+
+    assertEquals(2, sessions.size());
+    assertEquals("Morning", sessions.get(0).getName());
+    assertEquals(1768467600000L, sessions.get(0).getDate().getTime());
+    assertEquals(1L, sessions.get(0).getTeacher_id());
+    assertEquals(12, sessions.get(0).getCapacity());
+    assertEquals(Arrays.asList(3L, 4L), sessions.get(0).getUsers());
+    assertEquals(1768503600000L, sessions.get(1).getDate().getTime());
+    assertEquals("Slow, calm", sessions.get(1).getDescription());
+    assertNull(sessions.get(1).getCapacity());
+    assertNull(sessions.get(1).getUsers());
+  }
+
+  @Test
+  void testReadHandlesQuotesLineBreaksAndByteOrderMark() {
+    List<SessionDto> sessions = SessionCsv.read("\uFEFFdescription,name\n\"Say \"\"om\"\"\nthen breathe\",Flow",
+        objectMapper);
+
+    assertEquals(1, sessions.size());
+    assertEquals("Say \"om\"\nthen breathe", sessions.get(0).getDescription());
+    assertEquals("Flow", sessions.get(0).getName());
+  }
+
+  @Test
+  void testReadOfEmptyBodyReturnsNoSession() {
+    assertTrue(SessionCsv.read("", objectMapper).isEmpty());
+    assertTrue(SessionCsv.read("name,date\n", objectMapper).isEmpty());
+  }
+
+  @Test
+  void testReadSkipsBlankLines() {
+    List<SessionDto> sessions = SessionCsv.read("name,teacher_id\n\nFlow,1\n\n", objectMapper);
+    List<SessionDto> crlfSessions = SessionCsv.read("name,teacher_id\r\nFlow,1\r\n\r\nYin,2\r\n\r\n", objectMapper);
+
+    assertEquals(1, sessions.size());
+    assertEquals("Flow", sessions.get(0).getName());
+    assertEquals(2, crlfSessions.size());
+    assertEquals("Yin", crlfSessions.get(1).getName());
+  }
+
+  @Test
+  void testReadRejectsMalformedInput() {
+    assertThrows(BadRequestException.class, () -> SessionCsv.read("name,room\nFlow,A", objectMapper));
+    assertThrows(BadRequestException.class, () -> SessionCsv.read("name,date\nFlow", objectMapper));
+    assertThrows(BadRequestException.class, () -> SessionCsv.read("name,capacity\nFlow,many", objectMapper));
+    assertThrows(BadRequestException.class, () -> SessionCsv.read("name\n\"Flow", objectMapper));
+
+    BadRequestException e = assertThrows(BadRequestException.class,
+        () -> SessionCsv.read("name,teacher_id\nFlow,1\nYin,one", objectMapper));
+    assertEquals("Session 2: invalid value", e.getMessage());
+  }
+}
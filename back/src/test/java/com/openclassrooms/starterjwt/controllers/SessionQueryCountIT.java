@@ -0,0 +1,306 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.ParticipantIdsDto;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.RecurringSession;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.RecurringSessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class SessionQueryCountIT {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private SessionRepository sessionRepository;
+
+  @Autowired
+  private RecurringSessionRepository recurringSessionRepository;
+
+  @Autowired
+  private TeacherRepository teacherRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private Statistics statistics;
+  private List<Teacher> teachers;
+  private List<User> users;
+
+  @BeforeEach
+  void setUp() {
+    sessionRepository.deleteAll();
+    recurringSessionRepository.deleteAll();
+    teacherRepository.deleteAll();
+    userRepository.deleteAll();
+
+    teachers = new ArrayList<>();
+    users = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      teachers.add(teacherRepository.save(Teacher.builder().lastName("Teacher" + i).firstName("Count").build()));
+      users.add(userRepository.save(new User("count" + i + "@example.com", "User", "Count", "password", false)));
+    }
+
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @AfterEach
+  void tearDown() {
+    sessionRepository.deleteAll();
+    recurringSessionRepository.deleteAll();
+  }
+
+  @Test
+  @WithMockUser
+  void testFindAllRunsOneStatementWhateverTheNumberOfSessions() throws Exception {
+    createSessions(2);
+    long fewSessions = countStatements(get("/api/session"));
+
+    createSessions(20);
+    long manySessions = countStatements(get("/api/session"));
+
+    assertEquals(1, fewSessions);
+    assertEquals(fewSessions, manySessions);
+  }
+
+  @Test
+  @WithMockUser
+  void testFindPageRunsThreeStatementsWhateverThePageSize() throws Exception {
+    createSessions(22);
+
+    long smallPage = countStatements(get("/api/session").param("size", "2"));
+    long largePage = countStatements(get("/api/session").param("size", "20"));
+
+    assertEquals(3, smallPage);
+    assertEquals(smallPage, largePage);
+  }
+
+  @Test
+  @WithMockUser
+  void testSearchRunsThreeStatementsWhateverThePageSize() throws Exception {
+    createSessions(22);
+
+    long smallPage = countStatements(get("/api/session/search").param("text", "session").param("size", "2"));
+    long largePage = countStatements(get("/api/session/search").param("text", "session").param("size", "20"));
+
+    assertEquals(3, smallPage);
+    assertEquals(smallPage, largePage);
+  }
+
+  @Test
+  @WithMockUser
+  void testFindPageWithRecurringSessionsRunsFourStatementsWhateverTheirLength() throws Exception {
+    createSessions(22);
+    for (Teacher teacher : teachers) {
+      // Weekly for twenty years: only the occurrences of the page are computed
+      recurringSessionRepository.save(RecurringSession.builder()
+          .name("Weekly " + teacher.getLastName())
+          .description("Description")
+          .teacher(teacher)
+          .startsAt(new Date(System.currentTimeMillis() + 30000L))
+          .intervalWeeks(1)
+          .exceptions(new HashSet<>())
+          .build());
+    }
+
+    long smallPage = countStatements(get("/api/session").param("size", "2"));
+    long largePage = countStatements(get("/api/session").param("size", "20"));
+
+    assertEquals(4, smallPage);
+    assertEquals(smallPage, largePage);
+  }
+
+  @Test
+  @WithMockUser
+  void testFindByIdRunsOneStatement() throws Exception {
+    List<Session> sessions = createSessions(1);
+
+    assertEquals(1, countStatements(get("/api/session/{id}", sessions.get(0).getId())));
+  }
+
+  @Test
+  @WithMockUser
+  void testFindByIdWithoutParticipantsRunsOneStatement() throws Exception {
+    List<Session> sessions = createSessions(3);
+
+    assertEquals(1, countStatements(get("/api/session/{id}", sessions.get(2).getId()).param("participants", "false")));
+  }
+
+  @Test
+  @WithMockUser
+  void testParticipantPageRunsOneStatement() throws Exception {
+    List<Session> sessions = createSessions(3);
+
+    assertEquals(1, countStatements(get("/api/session/{id}/participants", sessions.get(2).getId()).param("size", "2")));
+  }
+
+  @Test
+  @WithMockUser
+  void testSessionsOfUserRunOneStatementWhateverThePageSize() throws Exception {
+    createSessions(22);
+
+    long smallPage = countStatements(get("/api/user/{id}/sessions", users.get(0).getId()).param("size", "2"));
+    long largePage = countStatements(get("/api/user/{id}/sessions", users.get(0).getId()).param("size", "20"));
+
+    assertEquals(1, smallPage);
+    assertEquals(smallPage, largePage);
+  }
+
+  @Test
+  @WithMockUser
+  void testBulkEnrollmentRunsFiveStatementsWhateverTheNumberOfUsers() throws Exception {
+    Session session = createSessions(1).get(0);
+    List<Long> userIds = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      userIds.add(userRepository.save(new User("bulk" + i + "@example.com", "User", "Bulk", "password", false)).getId());
+    }
+
+    long fewUsers = countStatements(post("/api/session/{id}/participate", session.getId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new ParticipantIdsDto(userIds.subList(0, 2)))));
+    long manyUsers = countStatements(post("/api/session/{id}/participate", session.getId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new ParticipantIdsDto(userIds.subList(2, 30)))));
+
+    assertEquals(5, fewUsers);
+    assertEquals(fewUsers, manyUsers);
+    assertEquals(31, sessionRepository.findParticipantCountById(session.getId()).orElse(0));
+  }
+
+  @Test
+  @WithMockUser
+  void testBatchCreationBatchesTheInserts() throws Exception {
+    List<SessionDto> sessionDtos = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      sessionDtos.add(new SessionDto(null, "Imported " + i, new Date(), teachers.get(0).getId(), "Description",
+          Collections.singletonList(users.get(i % users.size()).getId()), null, null, null, null));
+    }
+
+    long statements = countStatements(post("/api/session/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(sessionDtos)));
+
+    assertTrue(statements <= 20, statements + " statements");
+    assertEquals(200, sessionRepository.count());
+  }
+
+  @Test
+  @WithMockUser
+  void testRevalidatedFindByIdRunsOneStatementWithoutBody() throws Exception {
+    List<Session> sessions = createSessions(1);
+    String eTag = mockMvc.perform(get("/api/session/{id}", sessions.get(0).getId()))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    statistics.clear();
+    mockMvc.perform(get("/api/session/{id}", sessions.get(0).getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @WithMockUser
+  void testRevalidatedFindAllRunsOneStatementUntilASessionChanges() throws Exception {
+    List<Session> sessions = createSessions(3);
+    String eTag = mockMvc.perform(get("/api/session"))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    statistics.clear();
+    mockMvc.perform(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified());
+    assertEquals(1, statistics.getPrepareStatementCount());
+
+    Thread.sleep(5);
+    Session changed = sessions.get(0);
+    changed.setDescription("Changed");
+    sessionRepository.save(changed);
+
+    mockMvc.perform(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+  }
+
+  @Test
+  @WithMockUser
+  void testFindAllIsValidatedByETagOnly() throws Exception {
+    List<Session> sessions = createSessions(3);
+    String eTag = mockMvc.perform(get("/api/session"))
+        .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    // Deleting a session other than the latest leaves the latest update unchanged
+    sessionRepository.delete(sessions.get(0));
+
+    mockMvc.perform(get("/api/session").header(HttpHeaders.IF_MODIFIED_SINCE, "Fri, 31 Dec 9999 23:59:59 GMT"))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2));
+  }
+
+  private long countStatements(RequestBuilder request) throws Exception {
+    statistics.clear();
+
+    mockMvc.perform(request).andExpect(status().isOk());
+
+    return statistics.getPrepareStatementCount();
+  }
+
+  private List<Session> createSessions(int count) {
+    List<Session> sessions = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Session session = Session.builder()
+          .name("Session " + i)
+          .date(new Date(System.currentTimeMillis() + i * 60000L))
+          .description("Description")
+          .teacher(teachers.get(i % teachers.size()))
+          .users(new ArrayList<>(users.subList(0, 1 + i % users.size())))
+          .build();
+      sessions.add(sessionRepository.save(session));
+    }
+    return sessions;
+  }
+}
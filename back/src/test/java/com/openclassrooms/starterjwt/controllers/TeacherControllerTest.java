@@ -3,15 +3,19 @@ package com.openclassrooms.starterjwt.controllers;
 import com.openclassrooms.starterjwt.dto.TeacherDto;
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.ResourceVersion;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
@@ -69,9 +73,23 @@ class TeacherControllerTest {
     when(teacherService.findAll()).thenReturn(teachers);
     when(teacherMapper.toDto(teachers)).thenReturn(teacherDtos);
 
-    ResponseEntity<?> response = teacherController.findAll();
+    ResponseEntity<?> response = teacherController.findAll(new MockHttpServletRequest());
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals(teacherDtos, response.getBody());
   }
+
+  @Test
+  void testFindAllNotModifiedSkipsLoading() {
+    ResourceVersion version = new ResourceVersion("2", LocalDateTime.of(2024, 1, 1, 10, 0));
+    when(teacherService.findAllVersion()).thenReturn(version);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/teacher");
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + version.getETag() + "\"");
+
+    ResponseEntity<?> response = teacherController.findAll(request);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    verify(teacherService, never()).findAll();
+    verifyNoInteractions(teacherMapper);
+  }
 }
@@ -1,6 +1,11 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +19,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -29,6 +39,12 @@ public class UserControllerIT {
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  private SessionRepository sessionRepository;
+
+  @Autowired
+  private TeacherRepository teacherRepository;
+
   @Autowired
   private PasswordEncoder passwordEncoder;
 
@@ -38,11 +54,16 @@ public class UserControllerIT {
   @Autowired
   private JwtUtils jwtUtils;
 
+  @Autowired
+  private ObjectMapper objectMapper;
+
   private User testUser;
   private String jwtToken;
 
   @BeforeEach
   void setUp() {
+    sessionRepository.deleteAll();
+    teacherRepository.deleteAll();
     userRepository.deleteAll();
     testUser = userRepository
         .save(new User("test@example.com", "Doe", "John", passwordEncoder.encode("password"), false));
@@ -117,4 +138,52 @@ public class UserControllerIT {
         .header("Authorization", "Bearer " + jwtToken))
         .andExpect(status().isBadRequest());
   }
+
+  @Test
+  void testFindSessionsPagesTheUserSessionsInDateOrder() throws Exception {
+    Teacher teacher = teacherRepository.save(Teacher.builder().lastName("Doe").firstName("Jane").build());
+    long now = System.currentTimeMillis();
+    Session later = saveSession("Later", new Date(now + 60000), teacher, true);
+    Session earlier = saveSession("Earlier", new Date(now), teacher, true);
+    saveSession("Other", new Date(now + 30000), teacher, false);
+
+    MvcResult firstPage = mockMvc.perform(get("/api/user/{id}/sessions", testUser.getId())
+        .param("size", "1")
+        .header("Authorization", "Bearer " + jwtToken))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sessions.length()").value(1))
+        .andExpect(jsonPath("$.sessions[0].id").value(earlier.getId()))
+        .andExpect(jsonPath("$.sessions[0].users").doesNotExist())
+        .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+        .andReturn();
+    String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("nextCursor").asText();
+
+    mockMvc.perform(get("/api/user/me/sessions")
+        .param("size", "1")
+        .param("cursor", cursor)
+        .header("Authorization", "Bearer " + jwtToken))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sessions.length()").value(1))
+        .andExpect(jsonPath("$.sessions[0].id").value(later.getId()))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+    sessionRepository.deleteAll();
+  }
+
+  @Test
+  void testFindSessionsOfUnknownUser() throws Exception {
+    mockMvc.perform(get("/api/user/{id}/sessions", 999)
+        .header("Authorization", "Bearer " + jwtToken))
+        .andExpect(status().isNotFound());
+  }
+
+  private Session saveSession(String name, Date date, Teacher teacher, boolean attended) {
+    return sessionRepository.save(Session.builder()
+        .name(name)
+        .date(date)
+        .description("Description")
+        .teacher(teacher)
+        .users(attended ? new ArrayList<>(Collections.singletonList(testUser)) : new ArrayList<>())
+        .build());
+  }
 }
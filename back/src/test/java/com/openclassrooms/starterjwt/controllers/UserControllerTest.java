@@ -1,8 +1,15 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPageDto;
 import com.openclassrooms.starterjwt.dto.UserDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
+import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,7 +23,13 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class UserControllerTest {
@@ -26,6 +39,12 @@ class UserControllerTest {
   @Mock
   private UserMapper userMapper;
 
+  @Mock
+  private SessionService sessionService;
+
+  @Mock
+  private SessionMapper sessionMapper;
+
   @Mock
   private SecurityContext securityContext;
 
@@ -118,4 +137,51 @@ class UserControllerTest {
 
     assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
   }
+
+  @Test
+  void testFindSessionsReturnsPageWithCursor() {
+    Session first = Session.builder().id(4L).date(new Date(1000L)).build();
+    Session second = Session.builder().id(5L).date(new Date(2000L)).build();
+    List<SessionDto> dtos = new ArrayList<>();
+    when(sessionService.findPageOfUser(1L, null, 2)).thenReturn(Arrays.asList(first, second));
+    when(sessionMapper.toSummaryDto(Arrays.asList(first))).thenReturn(dtos);
+
+    ResponseEntity<?> response = userController.findSessions("1", null, 1);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    SessionPageDto page = (SessionPageDto) response.getBody();
+    assertSame(dtos, page.getSessions());
+    assertEquals(SessionCursor.of(first).encode(), page.getNextCursor());
+  }
+
+  @Test
+  void testFindSessionsRejectsInvalidIdAndSize() {
+    assertEquals(HttpStatus.BAD_REQUEST, userController.findSessions("invalid", null, null).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, userController.findSessions("1", null, 0).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, userController.findSessions("1", null, 101).getStatusCode());
+    verify(sessionService, never()).findPageOfUser(any(), any(), anyInt());
+  }
+
+  @Test
+  void testFindMySessionsUsesAuthenticatedUser() {
+    when(securityContext.getAuthentication()).thenReturn(authentication);
+    when(authentication.getPrincipal()).thenReturn(UserDetailsImpl.builder().id(7L).username("me@example.com").build());
+    when(sessionService.findPageOfUser(7L, null, SessionController.DEFAULT_PAGE_SIZE + 1)).thenReturn(new ArrayList<>());
+
+    ResponseEntity<?> response = userController.findMySessions(null, null);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNull(((SessionPageDto) response.getBody()).getNextCursor());
+  }
+
+  @Test
+  void testFindMySessionsWithoutUserIdIsUnauthorized() {
+    when(securityContext.getAuthentication()).thenReturn(authentication);
+    when(authentication.getPrincipal()).thenReturn(userDetails);
+
+    ResponseEntity<?> response = userController.findMySessions(null, null);
+
+    assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    verify(sessionService, never()).findPageOfUser(any(), any(), anyInt());
+  }
 }
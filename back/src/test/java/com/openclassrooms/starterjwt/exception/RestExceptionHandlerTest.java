@@ -0,0 +1,28 @@
+package com.openclassrooms.starterjwt.exception;
+
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestExceptionHandlerTest {
+  private final RestExceptionHandler handler = new RestExceptionHandler();
+
+  @Test
+  void testBadRequestWithMessageReturnsMessageBody() {
+    ResponseEntity<MessageResponse> response = handler.handleBadRequest(new BadRequestException("Unknown user ids: [5]"));
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("Unknown user ids: [5]", response.getBody().getMessage());
+  }
+
+  @Test
+  void testBadRequestWithoutMessageReturnsEmptyBody() {
+    ResponseEntity<MessageResponse> response = handler.handleBadRequest(new BadRequestException());
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertNull(response.getBody());
+  }
+}
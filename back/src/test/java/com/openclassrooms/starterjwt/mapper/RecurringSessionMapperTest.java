@@ -0,0 +1,90 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.RecurringSessionDto;
+import com.openclassrooms.starterjwt.models.RecurringSession;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RecurringSessionMapperTest {
+
+  @InjectMocks
+  private RecurringSessionMapper recurringSessionMapper = Mappers.getMapper(RecurringSessionMapper.class);
+
+  @Mock
+  private TeacherService teacherService;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  void testToEntity() {
+    RecurringSessionDto dto = new RecurringSessionDto();
+    dto.setName("Morning flow");
+    dto.setTeacher_id(1L);
+    dto.setDescription("Every Monday");
+    dto.setStartsAt(new Date());
+    dto.setEndsOn(LocalDate.of(2024, 6, 30));
+    dto.setIntervalWeeks(2);
+    dto.setExceptions(Collections.singleton(LocalDate.of(2024, 1, 8)));
+    Teacher teacher = new Teacher();
+    teacher.setId(1L);
+    when(teacherService.findById(1L)).thenReturn(teacher);
+
+    RecurringSession entity = recurringSessionMapper.toEntity(dto);
+
+    assertEquals(dto.getName(), entity.getName());
+    assertEquals(teacher, entity.getTeacher());
+    assertEquals(dto.getStartsAt(), entity.getStartsAt());
+    assertEquals(dto.getEndsOn(), entity.getEndsOn());
+    assertEquals(2, entity.getIntervalWeeks());
+    assertEquals(dto.getExceptions(), entity.getExceptions());
+    // Cancelling an occurrence adds to the set
+    assertTrue(entity.getExceptions() instanceof HashSet);
+  }
+
+  @Test
+  void testToEntityWithoutTeacherOrExceptions() {
+    RecurringSession entity = recurringSessionMapper.toEntity(new RecurringSessionDto());
+
+    assertNull(entity.getTeacher());
+    assertTrue(entity.getExceptions().isEmpty());
+    verifyNoInteractions(teacherService);
+  }
+
+  @Test
+  void testToDto() {
+    Teacher teacher = new Teacher();
+    teacher.setId(3L);
+    RecurringSession entity = RecurringSession.builder()
+        .id(1L)
+        .name("Morning flow")
+        .teacher(teacher)
+        .startsAt(new Date())
+        .intervalWeeks(1)
+        .exceptions(new HashSet<>(Collections.singleton(LocalDate.of(2024, 1, 8))))
+        .build();
+
+    RecurringSessionDto dto = recurringSessionMapper.toDto(entity);
+
+    assertEquals(1L, dto.getId());
+    assertEquals(3L, dto.getTeacher_id());
+    assertEquals(entity.getStartsAt(), dto.getStartsAt());
+    assertEquals(entity.getExceptions(), dto.getExceptions());
+  }
+}
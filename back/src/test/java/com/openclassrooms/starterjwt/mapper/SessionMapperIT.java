@@ -1,10 +1,12 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.junit.jupiter.api.Test;
@@ -34,6 +36,9 @@ public class SessionMapperIT {
   @Autowired
   private UserService userService;
 
+  @Autowired
+  private UserRepository userRepository;
+
   @Test
   public void testTeacherFetch() {
     List<Teacher> teachers = teacherRepository.findAll();
@@ -51,9 +56,13 @@ public class SessionMapperIT {
     sessionDto.setDescription("Test Description");
     sessionDto.setDate(new Date());
     sessionDto.setTeacher_id(1L);
-    sessionDto.setUsers(Arrays.asList(1L, 2L));
+    User first = userRepository.save(new User("mapper-first@example.com", "First", "Mapper", "password", false));
+    User second = userRepository.save(new User("mapper-second@example.com", "Second", "Mapper", "password", false));
+    sessionDto.setUsers(Arrays.asList(second.getId(), first.getId(), second.getId()));
 
     Session session = sessionMapper.toEntity(sessionDto);
+    userRepository.delete(first);
+    userRepository.delete(second);
 
     assertNotNull(session);
     assertEquals(sessionDto.getName(), session.getName());
@@ -61,7 +70,20 @@ public class SessionMapperIT {
     assertEquals(sessionDto.getDate(), session.getDate());
     assertNotNull(session.getTeacher());
     assertEquals(sessionDto.getTeacher_id(), session.getTeacher().getId());
-    assertEquals(2, session.getUsers().size());
+    assertEquals(Arrays.asList(second, first), session.getUsers());
+  }
+
+  @Test
+  public void testToEntityRejectsUnknownUserIds() {
+    SessionDto sessionDto = new SessionDto();
+    sessionDto.setName("Test Session");
+    sessionDto.setDescription("Test Description");
+    sessionDto.setDate(new Date());
+    sessionDto.setTeacher_id(1L);
+    sessionDto.setUsers(Arrays.asList(-1L, -2L));
+
+    BadRequestException exception = assertThrows(BadRequestException.class, () -> sessionMapper.toEntity(sessionDto));
+    assertEquals("Unknown user ids: [-1, -2]", exception.getMessage());
   }
 
   @Test
@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
@@ -58,8 +59,7 @@ class SessionMapperTest {
     user1.setId(1L);
     User user2 = new User();
     user2.setId(2L);
-    when(userService.findById(1L)).thenReturn(user1);
-    when(userService.findById(2L)).thenReturn(user2);
+    when(userService.findAllByIds(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(user1, user2));
 
     Session entity = sessionMapper.toEntity(dto);
 
@@ -76,6 +76,36 @@ class SessionMapperTest {
     assertTrue(entity.getUsers().contains(user2));
   }
 
+  @Test
+  void testToNewEntitiesLooksUpUsersOnceAndIgnoresIds() {
+    SessionDto first = new SessionDto();
+    first.setId(9L);
+    first.setName("Morning");
+    first.setTeacher_id(1L);
+    first.setUsers(Arrays.asList(1L, 2L));
+    SessionDto second = new SessionDto();
+    second.setName("Evening");
+    second.setUsers(Arrays.asList(2L, 2L));
+
+    User user1 = new User();
+    user1.setId(1L);
+    User user2 = new User();
+    user2.setId(2L);
+    when(userService.findAllByIds(Arrays.asList(1L, 2L, 2L, 2L))).thenReturn(Arrays.asList(user1, user2));
+    Teacher teacher = new Teacher();
+    when(teacherService.findById(1L)).thenReturn(teacher);
+
+    List<Session> entities = sessionMapper.toNewEntities(Arrays.asList(first, second));
+
+    assertEquals(2, entities.size());
+    assertNull(entities.get(0).getId());
+    assertEquals(teacher, entities.get(0).getTeacher());
+    assertEquals(Arrays.asList(user1, user2), entities.get(0).getUsers());
+    assertNull(entities.get(1).getTeacher());
+    assertEquals(Collections.singletonList(user2), entities.get(1).getUsers());
+    verify(userService, times(1)).findAllByIds(any());
+  }
+
   @Test
   void testToDto() {
     Session entity = new Session();
@@ -113,10 +143,10 @@ class SessionMapperTest {
 
   @Test
   void testToEntityList() {
-    SessionDto dto1 = new SessionDto(1L, "Session 1", new Date(), 1L, "Description 1", Arrays.asList(1L),
-        LocalDateTime.now(), LocalDateTime.now());
-    SessionDto dto2 = new SessionDto(2L, "Session 2", new Date(), 2L, "Description 2", Arrays.asList(2L),
-        LocalDateTime.now(), LocalDateTime.now());
+    SessionDto dto1 = new SessionDto(1L, "Session 1", new Date(), 1L, "Description 1", Arrays.asList(1L), null,
+        LocalDateTime.now(), LocalDateTime.now(), null);
+    SessionDto dto2 = new SessionDto(2L, "Session 2", new Date(), 2L, "Description 2", Arrays.asList(2L), null,
+        LocalDateTime.now(), LocalDateTime.now(), null);
     List<SessionDto> dtoList = Arrays.asList(dto1, dto2);
 
     Teacher teacher1 = new Teacher();
@@ -130,8 +160,8 @@ class SessionMapperTest {
     user1.setId(1L);
     User user2 = new User();
     user2.setId(2L);
-    when(userService.findById(1L)).thenReturn(user1);
-    when(userService.findById(2L)).thenReturn(user2);
+    when(userService.findAllByIds(Arrays.asList(1L))).thenReturn(Arrays.asList(user1));
+    when(userService.findAllByIds(Arrays.asList(2L))).thenReturn(Arrays.asList(user2));
 
     List<Session> entityList = sessionMapper.toEntity(dtoList);
 
@@ -153,10 +183,10 @@ class SessionMapperTest {
     User user2 = new User();
     user2.setId(2L);
 
-    Session entity1 = new Session(1L, "Session 1", new Date(), "Description 1", teacher1, Arrays.asList(user1),
-        LocalDateTime.now(), LocalDateTime.now());
-    Session entity2 = new Session(2L, "Session 2", new Date(), "Description 2", teacher2, Arrays.asList(user2),
-        LocalDateTime.now(), LocalDateTime.now());
+    Session entity1 = new Session(1L, "Session 1", new Date(), "Description 1", teacher1, Arrays.asList(user1), null, null,
+        LocalDateTime.now(), LocalDateTime.now(), null);
+    Session entity2 = new Session(2L, "Session 2", new Date(), "Description 2", teacher2, Arrays.asList(user2), null, null,
+        LocalDateTime.now(), LocalDateTime.now(), null);
     List<Session> entityList = Arrays.asList(entity1, entity2);
 
     List<SessionDto> dtoList = sessionMapper.toDto(entityList);
@@ -204,13 +234,14 @@ class SessionMapperTest {
     User user2 = new User();
     user2.setId(2L);
 
-    when(userService.findById(1L)).thenReturn(user1);
-    when(userService.findById(2L)).thenReturn(user2);
+    when(userService.findAllByIds(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(user1, user2));
 
     Session result = sessionMapper.toEntity(dto);
     assertEquals(2, result.getUsers().size());
     assertTrue(result.getUsers().contains(user1));
     assertTrue(result.getUsers().contains(user2));
+    verify(userService, times(1)).findAllByIds(any());
+    verify(userService, never()).findById(any());
   }
 
   @Test
@@ -232,22 +263,14 @@ class SessionMapperTest {
   }
 
   @Test
-  void testUsersMappingWithNullUser() {
+  void testUsersMappingWithUnknownUserIdsIsRejected() {
     SessionDto dto = new SessionDto();
     dto.setUsers(Arrays.asList(1L, null, 2L));
-    User user1 = new User();
-    user1.setId(1L);
-    User user2 = new User();
-    user2.setId(2L);
 
-    when(userService.findById(1L)).thenReturn(user1);
-    when(userService.findById(2L)).thenReturn(user2);
-    when(userService.findById(null)).thenReturn(null);
+    when(userService.findAllByIds(Arrays.asList(1L, null, 2L)))
+        .thenThrow(new BadRequestException("User ids must not be null"));
 
-    Session result = sessionMapper.toEntity(dto);
-    assertEquals(3, result.getUsers().size());
-    assertTrue(result.getUsers().contains(user1));
-    assertTrue(result.getUsers().contains(user2));
+    assertThrows(BadRequestException.class, () -> sessionMapper.toEntity(dto));
   }
 
   @Test
@@ -263,6 +286,16 @@ class SessionMapperTest {
     assertEquals(teacher, result.getTeacher());
   }
 
+  @Test
+  void testCapacityIsMappedBothWays() {
+    SessionDto dto = new SessionDto();
+    dto.setCapacity(12);
+
+    Session entity = sessionMapper.toEntity(dto);
+    assertEquals(12, entity.getCapacity());
+    assertEquals(12, sessionMapper.toDto(entity).getCapacity());
+  }
+
   @Test
   void testTeacherMappingWithNullTeacherId() {
     SessionDto dto = new SessionDto();
@@ -0,0 +1,135 @@
+package com.openclassrooms.starterjwt.models;
+
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs only with the second-level cache on (mvn -P l2cache verify).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class SecondLevelCacheIT {
+
+  @Autowired
+  private SessionRepository sessionRepository;
+
+  @Autowired
+  private TeacherRepository teacherRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private SessionService sessionService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private Statistics statistics;
+  private Teacher teacher;
+  private User user;
+  private Session session;
+
+  @BeforeEach
+  void setUp() {
+    SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    assumeTrue(sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled());
+    statistics = sessionFactory.getStatistics();
+
+    teacher = teacherRepository.save(Teacher.builder().lastName("Cached").firstName("Teacher").build());
+    user = userRepository.save(new User("l2cache@example.com", "User", "Cached", "password", false));
+    session = sessionRepository.save(Session.builder()
+        .name("Cached session")
+        .date(new Date())
+        .description("Description")
+        .teacher(teacher)
+        .users(new ArrayList<>(Collections.singletonList(user)))
+        .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (session != null) {
+      sessionRepository.deleteById(session.getId());
+      userRepository.deleteById(user.getId());
+      teacherRepository.deleteById(teacher.getId());
+    }
+  }
+
+  @Test
+  void testFindByIdIsServedFromTheCache() {
+    sessionRepository.findById(session.getId());
+    statistics.clear();
+
+    Session cached = sessionRepository.findById(session.getId()).orElseThrow(IllegalStateException::new);
+
+    assertEquals(0, statistics.getPrepareStatementCount());
+    assertEquals("Cached session", cached.getName());
+    assertEquals(teacher.getId(), cached.getTeacher().getId());
+  }
+
+  @Test
+  void testParticipantsAreServedFromTheCollectionCache() {
+    transactionTemplate.execute(status -> sessionRepository.findById(session.getId()).get().getUsers().size());
+    statistics.clear();
+
+    int participants = transactionTemplate.execute(status ->
+        sessionRepository.findById(session.getId()).get().getUsers().size());
+
+    assertEquals(1, participants);
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void testBulkUpdateEvictsTheCachedUser() {
+    userRepository.findById(user.getId());
+
+    transactionTemplate.execute(status -> userRepository.updatePassword(user.getEmail(), "changed"));
+
+    assertEquals("changed", userRepository.findById(user.getId()).get().getPassword());
+  }
+
+  @Test
+  void testJoinAndLeaveEvictOnlyTheSessionRegions() {
+    teacherRepository.findById(teacher.getId());
+    userRepository.findById(user.getId());
+
+    sessionService.noLongerParticipate(session.getId(), user.getId());
+    sessionService.participate(session.getId(), user.getId());
+
+    statistics.clear();
+    teacherRepository.findById(teacher.getId());
+    userRepository.findById(user.getId());
+    assertEquals(0, statistics.getPrepareStatementCount());
+
+    Session joined = transactionTemplate.execute(status -> {
+      Session loaded = sessionRepository.findById(session.getId()).get();
+      loaded.getUsers().size();
+      return loaded;
+    });
+    assertEquals(1, joined.getParticipantCount());
+    assertEquals(1, joined.getUsers().size());
+  }
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBCryptPasswordEncoderTest {
+
+  private final AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+
+  @Test
+  void upgradeEncoding_SameCost_ReturnsFalse() {
+    assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+  }
+
+  @Test
+  void upgradeEncoding_LowerCost_ReturnsTrue() {
+    assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+  }
+
+  @Test
+  void upgradeEncoding_HigherCost_ReturnsTrue() {
+    assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+  }
+
+  @Test
+  void upgradeEncoding_NotBCrypt_ReturnsFalse() {
+    assertFalse(encoder.upgradeEncoding(null));
+    assertFalse(encoder.upgradeEncoding("plain"));
+  }
+}
@@ -0,0 +1,70 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BoundedPasswordEncoderTest {
+
+  private final PasswordEncoder delegate = mock(PasswordEncoder.class);
+
+  private final BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, 1, 1);
+
+  @AfterEach
+  void tearDown() {
+    encoder.shutdown();
+  }
+
+  @Test
+  void delegatesHashing() {
+    when(delegate.encode("password")).thenReturn("hash");
+    when(delegate.matches("password", "hash")).thenReturn(true);
+    when(delegate.upgradeEncoding("hash")).thenReturn(true);
+
+    assertEquals("hash", encoder.encode("password"));
+    assertTrue(encoder.matches("password", "hash"));
+    assertTrue(encoder.upgradeEncoding("hash"));
+  }
+
+  @Test
+  void propagatesDelegateFailures() {
+    when(delegate.encode("password")).thenThrow(new IllegalArgumentException("bad"));
+
+    assertThrows(IllegalArgumentException.class, () -> encoder.encode("password"));
+  }
+
+  @Test
+  void rejectsWorkBeyondTheQueue() throws Exception {
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(delegate.matches(anyString(), anyString())).thenAnswer(invocation -> {
+      running.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return true;
+    });
+
+    CompletableFuture<Boolean> busy = CompletableFuture.supplyAsync(() -> encoder.matches("a", "hash"));
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+    CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("b", "hash"));
+    ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(encoder, "executor");
+    while (executor.getQueue().isEmpty()) {
+      Thread.sleep(5);
+    }
+
+    assertThrows(ServiceUnavailableException.class, () -> encoder.matches("c", "hash"));
+
+    release.countDown();
+    assertTrue(busy.get(5, TimeUnit.SECONDS));
+    assertTrue(queued.get(5, TimeUnit.SECONDS));
+  }
+}
@@ -31,7 +31,7 @@ class AuthEntryPointJwtTest {
 
   @BeforeEach
   void setUp() {
-    authEntryPointJwt = new AuthEntryPointJwt();
+    authEntryPointJwt = new AuthEntryPointJwt(new ObjectMapper());
     request = new MockHttpServletRequest();
     response = new MockHttpServletResponse();
     authException = mock(AuthenticationException.class);
@@ -61,4 +61,20 @@ class AuthEntryPointJwtTest {
     assertEquals(expectedPath, responseBody.get("path"));
   };
 
+  @Test
+  void testCommenceWithoutMessage() throws IOException, ServletException {
+    // Given
+    request.setServletPath("/api/session");
+    when(authException.getMessage()).thenReturn(null);
+
+    // When
+    authEntryPointJwt.commence(request, response, authException);
+
+    // Then
+    Map<String, Object> responseBody = new ObjectMapper().readValue(response.getContentAsString(), MAP_TYPE_REFERENCE);
+    assertTrue(responseBody.containsKey("message"));
+    assertNull(responseBody.get("message"));
+    assertEquals("/api/session", responseBody.get("path"));
+  }
+
 }
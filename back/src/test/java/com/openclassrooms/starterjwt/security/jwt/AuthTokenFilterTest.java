@@ -1,13 +1,20 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.servlet.FilterChain;
 import javax.servlet.http.HttpServletRequest;
@@ -27,6 +34,9 @@ class AuthTokenFilterTest {
   @Mock
   private UserDetailsServiceImpl userDetailsService;
 
+  @Mock
+  private UserRepository userRepository;
+
   @Mock
   private HttpServletRequest request;
 
@@ -40,6 +50,7 @@ class AuthTokenFilterTest {
   void setUp() {
     MockitoAnnotations.openMocks(this);
     SecurityContextHolder.clearContext();
+    ReflectionTestUtils.setField(authTokenFilter, "revocationCheck", true);
   }
 
   @Test
@@ -50,16 +61,15 @@ class AuthTokenFilterTest {
     UserDetails userDetails = mock(UserDetails.class);
 
     when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-    when(jwtUtils.validateJwtToken(token)).thenReturn(true);
-    when(jwtUtils.getUserNameFromJwtToken(token)).thenReturn(username);
+    when(jwtUtils.parseJwtToken(token)).thenReturn(Jwts.claims().setSubject(username));
     when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
 
     // When
     authTokenFilter.doFilterInternal(request, response, filterChain);
 
     // Then
-    verify(jwtUtils).validateJwtToken(token);
-    verify(jwtUtils).getUserNameFromJwtToken(token);
+    verify(jwtUtils).parseJwtToken(token);
+    verifyNoMoreInteractions(jwtUtils);
     verify(userDetailsService).loadUserByUsername(username);
     assertNotNull(SecurityContextHolder.getContext().getAuthentication());
     verify(filterChain).doFilter(request, response);
@@ -71,13 +81,13 @@ class AuthTokenFilterTest {
     String token = "invalid.jwt.token";
 
     when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-    when(jwtUtils.validateJwtToken(token)).thenReturn(false);
+    when(jwtUtils.parseJwtToken(token)).thenReturn(null);
 
     // When
     authTokenFilter.doFilterInternal(request, response, filterChain);
 
     // Then
-    verify(jwtUtils).validateJwtToken(token);
+    verify(jwtUtils).parseJwtToken(token);
     verifyNoInteractions(userDetailsService);
     assertNull(SecurityContextHolder.getContext().getAuthentication());
     verify(filterChain).doFilter(request, response);
@@ -103,13 +113,13 @@ class AuthTokenFilterTest {
     // Given
     String token = "valid.jwt.token";
     when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-    when(jwtUtils.validateJwtToken(token)).thenThrow(new RuntimeException("Test exception"));
+    when(jwtUtils.parseJwtToken(token)).thenThrow(new RuntimeException("Test exception"));
 
     // When
     authTokenFilter.doFilterInternal(request, response, filterChain);
 
     // Then
-    verify(jwtUtils).validateJwtToken(token);
+    verify(jwtUtils).parseJwtToken(token);
     verifyNoInteractions(userDetailsService);
     assertNull(SecurityContextHolder.getContext().getAuthentication());
     verify(filterChain).doFilter(request, response);
@@ -145,4 +155,127 @@ class AuthTokenFilterTest {
     assertNull(SecurityContextHolder.getContext().getAuthentication());
     verify(filterChain).doFilter(request, response);
   }
+
+  @Test
+  void testDoFilterInternal_StatelessPrincipalSkipsUserLookup() throws Exception {
+    // Given
+    String token = "valid.jwt.token";
+    Claims claims = Jwts.claims().setSubject("testuser");
+    UserDetailsImpl principal = UserDetailsImpl.builder().id(1L).username("testuser").admin(true).build();
+    ReflectionTestUtils.setField(authTokenFilter, "statelessPrincipal", true);
+
+    when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+    when(jwtUtils.parseJwtToken(token)).thenReturn(claims);
+    when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(principal);
+    when(userRepository.existsById(1L)).thenReturn(true);
+
+    // When
+    authTokenFilter.doFilterInternal(request, response, filterChain);
+
+    // Then
+    verifyNoInteractions(userDetailsService);
+    assertSame(principal, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    verify(filterChain).doFilter(request, response);
+  }
+
+  @Test
+  void testDoFilterInternal_StatelessPrincipalWithoutRevocationCheck() throws Exception {
+    // Given
+    String token = "valid.jwt.token";
+    Claims claims = Jwts.claims().setSubject("testuser");
+    UserDetailsImpl principal = UserDetailsImpl.builder().id(1L).username("testuser").build();
+    ReflectionTestUtils.setField(authTokenFilter, "statelessPrincipal", true);
+    ReflectionTestUtils.setField(authTokenFilter, "revocationCheck", false);
+
+    when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+    when(jwtUtils.parseJwtToken(token)).thenReturn(claims);
+    when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(principal);
+
+    // When
+    authTokenFilter.doFilterInternal(request, response, filterChain);
+
+    // Then
+    verifyNoInteractions(userDetailsService, userRepository);
+    assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+  }
+
+  @Test
+  void testDoFilterInternal_StatelessPrincipalOfDeletedUser() throws Exception {
+    // Given
+    String token = "valid.jwt.token";
+    Claims claims = Jwts.claims().setSubject("testuser");
+    ReflectionTestUtils.setField(authTokenFilter, "statelessPrincipal", true);
+
+    when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+    when(jwtUtils.parseJwtToken(token)).thenReturn(claims);
+    when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(UserDetailsImpl.builder().id(1L).build());
+    when(userRepository.existsById(1L)).thenReturn(false);
+
+    // When
+    authTokenFilter.doFilterInternal(request, response, filterChain);
+
+    // Then
+    assertNull(SecurityContextHolder.getContext().getAuthentication());
+    verify(filterChain).doFilter(request, response);
+    // Revocations are rate limited apart from authentication failures
+    LogRateLimiter failureLogLimiter = (LogRateLimiter) ReflectionTestUtils.getField(authTokenFilter, "failureLogLimiter");
+    assertEquals(0, failureLogLimiter.tryAcquire());
+  }
+
+  @Test
+  void testDoFilterInternal_StatelessPrincipalFallsBackForLegacyToken() throws Exception {
+    // Given
+    String token = "legacy.jwt.token";
+    Claims claims = Jwts.claims().setSubject("testuser");
+    UserDetails userDetails = mock(UserDetails.class);
+    ReflectionTestUtils.setField(authTokenFilter, "statelessPrincipal", true);
+
+    when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+    when(jwtUtils.parseJwtToken(token)).thenReturn(claims);
+    when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(null);
+    when(userDetailsService.loadUserByUsername("testuser")).thenReturn(userDetails);
+
+    // When
+    authTokenFilter.doFilterInternal(request, response, filterChain);
+
+    // Then
+    verify(userDetailsService).loadUserByUsername("testuser");
+    assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+  }
+
+  @Test
+  void testDoFilter_SkipsPublicPaths() throws Exception {
+    // Given
+    authTokenFilter.setPublicPaths("/api/auth/**");
+    MockHttpServletRequest publicRequest = new MockHttpServletRequest("POST", "/api/auth/login");
+    publicRequest.setServletPath("/api/auth/login");
+    publicRequest.addHeader("Authorization", "Bearer some.jwt.token");
+    MockHttpServletResponse publicResponse = new MockHttpServletResponse();
+
+    // When
+    authTokenFilter.doFilter(publicRequest, publicResponse, filterChain);
+
+    // Then
+    verifyNoInteractions(jwtUtils, userDetailsService, userRepository);
+    assertNull(SecurityContextHolder.getContext().getAuthentication());
+    verify(filterChain).doFilter(publicRequest, publicResponse);
+  }
+
+  @Test
+  void testDoFilter_FiltersOtherPaths() throws Exception {
+    // Given
+    authTokenFilter.setPublicPaths("/api/auth/**");
+    MockHttpServletRequest apiRequest = new MockHttpServletRequest("GET", "/api/session");
+    apiRequest.setServletPath("/api/session");
+    apiRequest.addHeader("Authorization", "Bearer some.jwt.token");
+    when(jwtUtils.parseJwtToken("some.jwt.token")).thenReturn(Jwts.claims().setSubject("testuser"));
+    when(userDetailsService.loadUserByUsername("testuser")).thenReturn(mock(UserDetails.class));
+
+    // When
+    authTokenFilter.doFilter(apiRequest, new MockHttpServletResponse(), filterChain);
+
+    // Then
+    verify(userDetailsService).loadUserByUsername("testuser");
+    assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+  }
 }
@@ -0,0 +1,28 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtRejectionTest {
+
+  @Test
+  void testOfMapsEachFailure() {
+    assertEquals(JwtRejection.SIGNATURE, JwtRejection.of(new SignatureException("bad")));
+    assertEquals(JwtRejection.MALFORMED, JwtRejection.of(new MalformedJwtException("bad")));
+    assertEquals(JwtRejection.EXPIRED, JwtRejection.of(new ExpiredJwtException(null, null, "bad")));
+    assertEquals(JwtRejection.UNSUPPORTED, JwtRejection.of(new UnsupportedJwtException("bad")));
+    assertEquals(JwtRejection.EMPTY, JwtRejection.of(new IllegalArgumentException("bad")));
+    assertEquals(JwtRejection.INVALID, JwtRejection.of(new PrematureJwtException(null, null, "bad")));
+  }
+
+  @Test
+  void testTag() {
+    assertEquals("signature", JwtRejection.SIGNATURE.getTag());
+  }
+}
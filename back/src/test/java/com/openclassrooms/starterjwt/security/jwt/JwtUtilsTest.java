@@ -1,8 +1,10 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -29,12 +31,16 @@ class JwtUtilsTest {
 
   private String jwtSecret = "testSecret";
   private int jwtExpirationMs = 60000;
+  private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
     ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
     ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", jwtExpirationMs);
+    ReflectionTestUtils.setField(jwtUtils, "jwtCacheSize", 100);
+    ReflectionTestUtils.setField(jwtUtils, "meterRegistry", meterRegistry);
+    jwtUtils.init();
   }
 
   @Test
@@ -230,4 +236,109 @@ class JwtUtilsTest {
     // Then
     assertFalse(isValid);
   }
+
+  @Test
+  void testParseJwtTokenReusesVerifiedClaims() {
+    // Given
+    String token = Jwts.builder()
+        .setSubject("testuser")
+        .setIssuedAt(new Date())
+        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
+        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .compact();
+    Claims first = jwtUtils.parseJwtToken(token);
+    ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "rotatedSecret");
+
+    // When
+    Claims second = jwtUtils.parseJwtToken(token);
+
+    // Then
+    assertEquals("testuser", first.getSubject());
+    assertSame(first, second);
+  }
+
+  @Test
+  void testParseJwtTokenRemembersRejectedTokens() {
+    // Given
+    String token = Jwts.builder()
+        .setSubject("testuser")
+        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
+        .signWith(SignatureAlgorithm.HS512, "otherSecret")
+        .compact();
+    assertNull(jwtUtils.parseJwtToken(token));
+    ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "otherSecret");
+
+    // When
+    Claims claims = jwtUtils.parseJwtToken(token);
+
+    // Then
+    assertNull(claims);
+    assertEquals(2.0, rejections("signature"));
+  }
+
+  @Test
+  void testParseJwtTokenCountsRejectionsByReason() {
+    // Given
+    String expired = Jwts.builder()
+        .setSubject("testuser")
+        .setExpiration(new Date(System.currentTimeMillis() - jwtExpirationMs))
+        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .compact();
+
+    // When
+    for (int i = 0; i < 3; i++) {
+      jwtUtils.parseJwtToken(expired);
+      jwtUtils.parseJwtToken("malformed.jwt.token");
+    }
+    jwtUtils.parseJwtToken(null);
+
+    // Then
+    assertEquals(3.0, rejections("expired"));
+    assertEquals(3.0, rejections("malformed"));
+    assertEquals(1.0, rejections("empty"));
+    assertEquals(0.0, rejections("signature"));
+  }
+
+  @Test
+  void testGenerateJwtTokenCarriesPrincipalClaims() {
+    // Given
+    UserDetailsImpl principal = UserDetailsImpl.builder()
+        .id(42L)
+        .username("yoga@studio.com")
+        .firstName("Admin")
+        .lastName("Admin")
+        .admin(true)
+        .password("secret")
+        .build();
+    when(authentication.getPrincipal()).thenReturn(principal);
+    String token = jwtUtils.generateJwtToken(authentication);
+
+    // When
+    UserDetailsImpl rebuilt = jwtUtils.getUserDetailsFromClaims(jwtUtils.parseJwtToken(token));
+
+    // Then
+    assertEquals(42L, rebuilt.getId());
+    assertEquals("yoga@studio.com", rebuilt.getUsername());
+    assertEquals("Admin", rebuilt.getFirstName());
+    assertEquals("Admin", rebuilt.getLastName());
+    assertTrue(rebuilt.getAdmin());
+    assertEquals(UserDetailsImpl.authoritiesFor(true), rebuilt.getAuthorities());
+    assertNull(rebuilt.getPassword());
+  }
+
+  @Test
+  void testGetUserDetailsFromClaimsOfLegacyToken() {
+    // Given
+    Claims claims = Jwts.claims().setSubject("testuser");
+
+    // When
+    UserDetailsImpl rebuilt = jwtUtils.getUserDetailsFromClaims(claims);
+
+    // Then
+    assertNull(rebuilt);
+  }
+
+  private double rejections(String reason) {
+    return meterRegistry.get("jwt.rejections").tag("reason", reason).counter().count();
+  }
 }
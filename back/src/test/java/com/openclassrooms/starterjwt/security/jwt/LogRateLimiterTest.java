@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRateLimiterTest {
+
+  private final AtomicLong now = new AtomicLong(1000);
+
+  private final LogRateLimiter limiter = new LogRateLimiter(100, now::get);
+
+  @Test
+  void testFirstEventIsLogged() {
+    assertEquals(0, limiter.tryAcquire());
+  }
+
+  @Test
+  void testEventsWithinTheIntervalAreSuppressed() {
+    limiter.tryAcquire();
+    now.addAndGet(99);
+
+    assertEquals(-1, limiter.tryAcquire());
+    assertEquals(-1, limiter.tryAcquire());
+  }
+
+  @Test
+  void testNextPermitReportsSuppressedEvents() {
+    limiter.tryAcquire();
+    limiter.tryAcquire();
+    limiter.tryAcquire();
+    now.addAndGet(100);
+
+    assertEquals(2, limiter.tryAcquire());
+    assertEquals(-1, limiter.tryAcquire());
+  }
+
+  @Test
+  void testSuffixOnlyWhenEventsWereSuppressed() {
+    assertEquals("", LogRateLimiter.suppressedSuffix(0, "failures"));
+    assertEquals(" (3 similar failures not logged)", LogRateLimiter.suppressedSuffix(3, "failures"));
+  }
+}
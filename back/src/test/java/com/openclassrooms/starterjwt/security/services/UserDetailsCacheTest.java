@@ -0,0 +1,87 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(UserDetailsCacheTest.Config.class)
+class UserDetailsCacheTest {
+
+  // Not a @Configuration, so the application's component scan does not pick it up
+  @EnableCaching(proxyTargetClass = true)
+  static class Config {
+    @Bean
+    UserRepository userRepository() {
+      return mock(UserRepository.class);
+    }
+
+    @Bean
+    CacheManager cacheManager() {
+      return new CaffeineCacheManager(UserDetailsServiceImpl.CACHE_NAME);
+    }
+
+    @Bean
+    UserDetailsServiceImpl userDetailsService(UserRepository userRepository, UserService userService) {
+      return new UserDetailsServiceImpl(userRepository, userService);
+    }
+
+    @Bean
+    UserService userService(UserRepository userRepository, CacheManager cacheManager) {
+      return new UserService(userRepository, cacheManager);
+    }
+  }
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private UserDetailsServiceImpl userDetailsService;
+
+  @Autowired
+  private UserService userService;
+
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    reset(userRepository);
+    user = new User();
+    user.setId(1L);
+    user.setEmail("cached@example.com");
+    user.setPassword("password");
+    when(userRepository.findByEmail("cached@example.com")).thenReturn(Optional.of(user));
+    when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    userService.evictUserDetails("cached@example.com");
+  }
+
+  @Test
+  void loadUserByUsername_SecondCallIsServedFromCache() {
+    userDetailsService.loadUserByUsername("cached@example.com");
+    userDetailsService.loadUserByUsername("cached@example.com");
+
+    verify(userRepository, times(1)).findByEmail("cached@example.com");
+  }
+
+  @Test
+  void delete_EvictsCachedPrincipal() {
+    userDetailsService.loadUserByUsername("cached@example.com");
+
+    userService.delete(1L);
+    userDetailsService.loadUserByUsername("cached@example.com");
+
+    verify(userRepository, times(2)).findByEmail("cached@example.com");
+  }
+}
@@ -36,6 +36,16 @@ class UserDetailsImplTest {
     assertThat(authorities).isEmpty();
   }
 
+  @Test
+  void testAuthoritiesFor() {
+    assertThat(UserDetailsImpl.authoritiesFor(false))
+        .extracting(GrantedAuthority::getAuthority)
+        .containsExactly("ROLE_USER");
+    assertThat(UserDetailsImpl.authoritiesFor(true))
+        .extracting(GrantedAuthority::getAuthority)
+        .containsExactly("ROLE_USER", "ROLE_ADMIN");
+  }
+
   @Test
   void testIsAccountNonExpired() {
     UserDetailsImpl userDetails = UserDetailsImpl.builder().build();
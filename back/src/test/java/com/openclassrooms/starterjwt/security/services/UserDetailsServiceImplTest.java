@@ -2,6 +2,7 @@ package com.openclassrooms.starterjwt.security.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -19,12 +20,15 @@ class UserDetailsServiceImplTest {
   @Mock
   private UserRepository userRepository;
 
+  @Mock
+  private UserService userService;
+
   private UserDetailsServiceImpl userDetailsService;
 
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
-    userDetailsService = new UserDetailsServiceImpl(userRepository);
+    userDetailsService = new UserDetailsServiceImpl(userRepository, userService);
   }
 
   @Test
@@ -37,6 +41,7 @@ class UserDetailsServiceImplTest {
     user.setLastName("Doe");
     user.setFirstName("John");
     user.setPassword("password");
+    user.setAdmin(true);
 
     when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
 
@@ -52,6 +57,8 @@ class UserDetailsServiceImplTest {
     assertEquals(1L, userDetailsImpl.getId());
     assertEquals("Doe", userDetailsImpl.getLastName());
     assertEquals("John", userDetailsImpl.getFirstName());
+    assertTrue(userDetailsImpl.getAdmin());
+    assertEquals(2, userDetails.getAuthorities().size());
   }
 
   @Test
@@ -69,4 +76,27 @@ class UserDetailsServiceImplTest {
     String actualMessage = exception.getMessage();
     assertTrue(actualMessage.contains(expectedMessage));
   }
+
+  @Test
+  void updatePassword_StoresNewHash() {
+    // Given
+    UserDetailsImpl user = UserDetailsImpl.builder()
+        .id(1L)
+        .username("test@example.com")
+        .firstName("John")
+        .lastName("Doe")
+        .admin(true)
+        .password("old")
+        .build();
+
+    // When
+    UserDetails updated = userDetailsService.updatePassword(user, "new");
+
+    // Then
+    verify(userRepository).updatePassword("test@example.com", "new");
+    verify(userService).evictUserDetails("test@example.com");
+    assertEquals("new", updated.getPassword());
+    assertEquals(user, updated);
+    assertTrue(((UserDetailsImpl) updated).getAdmin());
+  }
 }
@@ -0,0 +1,319 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.RecurringSession;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.OccurrenceKey;
+import com.openclassrooms.starterjwt.repository.RecurringSessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RecurringSessionServiceTest {
+  private RecurringSessionRepository recurringSessionRepository;
+  private SessionRepository sessionRepository;
+  private RecurringSessionService recurringSessionService;
+
+  // Weekly on Mondays at 10:00 from 2024-01-01
+  private RecurringSession weekly;
+  // Every other Wednesday at 18:00 from 2024-01-03
+  private RecurringSession fortnightly;
+
+  @BeforeEach
+  void setUp() {
+    recurringSessionRepository = mock(RecurringSessionRepository.class);
+    sessionRepository = mock(SessionRepository.class);
+    recurringSessionService = new RecurringSessionService(recurringSessionRepository, sessionRepository);
+
+    weekly = recurringSession(1L, at(2024, 1, 1, 10), 1);
+    fortnightly = recurringSession(2L, at(2024, 1, 3, 18), 2);
+    when(sessionRepository.findOccurrenceKeys(any(), any(), any())).thenReturn(new ArrayList<>());
+  }
+
+  @Test
+  void testFindOccurrencesMergesRecurringSessionsInDateOrder() {
+    when(recurringSessionRepository.findActiveOn(LocalDate.of(2024, 1, 1)))
+        .thenReturn(Arrays.asList(weekly, fortnightly));
+
+    List<Session> occurrences = recurringSessionService.findOccurrences(
+        search(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)), null, 20);
+
+    assertEquals(Arrays.asList(at(2024, 1, 1, 10), at(2024, 1, 3, 18), at(2024, 1, 8, 10), at(2024, 1, 15, 10),
+        at(2024, 1, 17, 18), at(2024, 1, 22, 10), at(2024, 1, 29, 10), at(2024, 1, 31, 18)), datesOf(occurrences));
+    Session first = occurrences.get(0);
+    assertNull(first.getId());
+    assertEquals(1L, first.getRecurringSessionId());
+    assertEquals(weekly.getName(), first.getName());
+    assertEquals(0, first.getParticipantCount());
+    verify(sessionRepository).findOccurrenceKeys(any(), any(), any());
+  }
+
+  @Test
+  void testFindOccurrencesSkipsExceptionsAndStopsAtTheEndOfTheRecurrence() {
+    weekly.getExceptions().add(LocalDate.of(2024, 1, 8));
+    weekly.setEndsOn(LocalDate.of(2024, 1, 22));
+    when(recurringSessionRepository.findAllWithExceptions()).thenReturn(Collections.singletonList(weekly));
+
+    List<Session> occurrences = recurringSessionService.findOccurrences(new SessionSearch(), null, 20);
+
+    assertEquals(Arrays.asList(at(2024, 1, 1, 10), at(2024, 1, 15, 10), at(2024, 1, 22, 10)), datesOf(occurrences));
+  }
+
+  @Test
+  void testFindOccurrencesComputesOnlyTheRequestedNumberOfAnOpenEndedRecurrence() {
+    when(recurringSessionRepository.findAllWithExceptions()).thenReturn(Collections.singletonList(weekly));
+
+    List<Session> occurrences = recurringSessionService.findOccurrences(new SessionSearch(), null, 2);
+
+    assertEquals(Arrays.asList(at(2024, 1, 1, 10), at(2024, 1, 8, 10)), datesOf(occurrences));
+  }
+
+  @Test
+  void testFindOccurrencesJumpsToTheStartOfTheWindow() {
+    when(recurringSessionRepository.findActiveOn(LocalDate.of(2030, 6, 5)))
+        .thenReturn(Arrays.asList(weekly, fortnightly));
+
+    List<Session> occurrences = recurringSessionService.findOccurrences(
+        search(LocalDate.of(2030, 6, 5), null), null, 2);
+
+    // 2030-06-05 is a Wednesday, 335 weeks after 2024-01-03: an odd week for the fortnightly session
+    assertEquals(Arrays.asList(at(2030, 6, 10, 10), at(2030, 6, 12, 18)), datesOf(occurrences));
+  }
+
+  @Test
+  void testFindOccurrencesContinuesAfterTheCursor() {
+    RecurringSession twin = recurringSession(3L, weekly.getStartsAt(), 1);
+    Date date = at(2024, 1, 8, 10);
+    when(recurringSessionRepository.findActiveOn(LocalDate.of(2024, 1, 8))).thenReturn(Arrays.asList(weekly, twin));
+
+    // On the same date the recurring session with the highest id comes first
+    List<Session> occurrences = recurringSessionService.findOccurrences(
+        new SessionSearch(), new SessionCursor(date, -3L), 3);
+
+    assertEquals(Arrays.asList(date, at(2024, 1, 15, 10), at(2024, 1, 15, 10)), datesOf(occurrences));
+    assertEquals(Arrays.asList(1L, 3L, 1L),
+        occurrences.stream().map(Session::getRecurringSessionId).collect(Collectors.toList()));
+  }
+
+  @Test
+  void testFindOccurrencesReplacesStoredOccurrences() {
+    OccurrenceKey stored = mock(OccurrenceKey.class);
+    when(stored.getRecurringSessionId()).thenReturn(1L);
+    when(stored.getDate()).thenReturn(at(2024, 1, 1, 10));
+    when(sessionRepository.findOccurrenceKeys(any(), any(), any()))
+        .thenReturn(Collections.singletonList(stored), new ArrayList<>());
+    when(recurringSessionRepository.findAllWithExceptions()).thenReturn(Arrays.asList(weekly, fortnightly));
+
+    List<Session> occurrences = recurringSessionService.findOccurrences(new SessionSearch(), null, 2);
+
+    assertEquals(Arrays.asList(at(2024, 1, 3, 18), at(2024, 1, 8, 10)), datesOf(occurrences));
+    verify(sessionRepository, times(2)).findOccurrenceKeys(any(), any(), any());
+  }
+
+  @Test
+  void testFindOccurrencesFiltersOnTeacherAndText() {
+    when(recurringSessionRepository.findAllWithExceptions()).thenReturn(Arrays.asList(weekly, fortnightly));
+    SessionSearch byTeacher = new SessionSearch();
+    byTeacher.setTeacherId(2L);
+    SessionSearch byText = new SessionSearch();
+    byText.setText(" Recurring 1 ");
+
+    List<Session> ofTeacher = recurringSessionService.findOccurrences(byTeacher, null, 1);
+    List<Session> withText = recurringSessionService.findOccurrences(byText, null, 1);
+
+    assertEquals(2L, ofTeacher.get(0).getRecurringSessionId());
+    assertEquals(1L, withText.get(0).getRecurringSessionId());
+  }
+
+  @Test
+  void testFindOccurrencesWithoutRecurringSessionsRunsNoOccurrenceQuery() {
+    when(recurringSessionRepository.findAllWithExceptions()).thenReturn(new ArrayList<>());
+
+    assertTrue(recurringSessionService.findOccurrences(new SessionSearch(), null, 5).isEmpty());
+    verify(sessionRepository, never()).findOccurrenceKeys(any(), any(), any());
+  }
+
+  @Test
+  void testMaterializeReturnsTheStoredOccurrence() {
+    when(recurringSessionRepository.lockById(1L)).thenReturn(Optional.of(1L));
+    Session stored = Session.builder().id(9L).build();
+    when(recurringSessionRepository.findWithExceptionsById(1L)).thenReturn(Optional.of(weekly));
+    when(sessionRepository.findByRecurringSessionIdAndDate(1L, at(2024, 1, 8, 10))).thenReturn(Optional.of(stored));
+
+    assertEquals(stored, recurringSessionService.materialize(1L, LocalDate.of(2024, 1, 8)));
+    verify(sessionRepository, never()).saveAndFlush(any());
+  }
+
+  @Test
+  void testMaterializeStoresTheOccurrence() {
+    when(recurringSessionRepository.lockById(1L)).thenReturn(Optional.of(1L));
+    when(recurringSessionRepository.findWithExceptionsById(1L)).thenReturn(Optional.of(weekly));
+    when(sessionRepository.findByRecurringSessionIdAndDate(1L, at(2024, 1, 8, 10))).thenReturn(Optional.empty());
+    when(sessionRepository.saveAndFlush(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    Session occurrence = recurringSessionService.materialize(1L, LocalDate.of(2024, 1, 8));
+
+    assertEquals(at(2024, 1, 8, 10), occurrence.getDate());
+    assertEquals(1L, occurrence.getRecurringSessionId());
+    assertEquals(weekly.getTeacher(), occurrence.getTeacher());
+  }
+
+  @Test
+  void testMaterializeOfADayWithoutOccurrenceThrowsNotFound() {
+    when(recurringSessionRepository.lockById(1L)).thenReturn(Optional.of(1L));
+    when(recurringSessionRepository.lockById(2L)).thenReturn(Optional.of(2L));
+    weekly.getExceptions().add(LocalDate.of(2024, 1, 15));
+    when(recurringSessionRepository.findWithExceptionsById(1L)).thenReturn(Optional.of(weekly));
+
+    assertThrows(NotFoundException.class, () -> recurringSessionService.materialize(1L, LocalDate.of(2024, 1, 9)));
+    assertThrows(NotFoundException.class, () -> recurringSessionService.materialize(1L, LocalDate.of(2023, 12, 25)));
+    assertThrows(NotFoundException.class, () -> recurringSessionService.materialize(1L, LocalDate.of(2024, 1, 15)));
+    assertThrows(NotFoundException.class, () -> recurringSessionService.materialize(2L, LocalDate.of(2024, 1, 3)));
+    verifyNoInteractions(sessionRepository);
+  }
+
+  @Test
+  void testCancelOccurrenceAddsAnException() {
+    when(recurringSessionRepository.lockById(2L)).thenReturn(Optional.of(2L));
+    when(recurringSessionRepository.findWithExceptionsById(2L)).thenReturn(Optional.of(fortnightly));
+    when(sessionRepository.findByRecurringSessionIdAndDate(2L, at(2024, 1, 17, 18))).thenReturn(Optional.empty());
+    when(recurringSessionRepository.save(fortnightly)).thenReturn(fortnightly);
+
+    RecurringSession result = recurringSessionService.cancelOccurrence(2L, LocalDate.of(2024, 1, 17));
+
+    assertTrue(result.getExceptions().contains(LocalDate.of(2024, 1, 17)));
+  }
+
+  @Test
+  void testCancelOccurrenceOfAnOffWeekThrowsNotFound() {
+    when(recurringSessionRepository.lockById(2L)).thenReturn(Optional.of(2L));
+    when(recurringSessionRepository.findWithExceptionsById(2L)).thenReturn(Optional.of(fortnightly));
+
+    assertThrows(NotFoundException.class,
+        () -> recurringSessionService.cancelOccurrence(2L, LocalDate.of(2024, 1, 10)));
+    verify(recurringSessionRepository, never()).save(any());
+  }
+
+  @Test
+  void testCancelOccurrenceAlreadyJoinedDeletesTheStoredSession() {
+    Session stored = Session.builder().id(9L).build();
+    when(recurringSessionRepository.lockById(1L)).thenReturn(Optional.of(1L));
+    when(recurringSessionRepository.findWithExceptionsById(1L)).thenReturn(Optional.of(weekly));
+    when(sessionRepository.findByRecurringSessionIdAndDate(1L, at(2024, 1, 8, 10))).thenReturn(Optional.of(stored));
+    when(recurringSessionRepository.save(weekly)).thenReturn(weekly);
+
+    RecurringSession result = recurringSessionService.cancelOccurrence(1L, LocalDate.of(2024, 1, 8));
+
+    verify(sessionRepository).delete(stored);
+    assertTrue(result.getExceptions().contains(LocalDate.of(2024, 1, 8)));
+  }
+
+  @Test
+  void testCancelOccurrenceOfUnknownTemplateThrowsNotFound() {
+    assertThrows(NotFoundException.class,
+        () -> recurringSessionService.cancelOccurrence(3L, LocalDate.of(2024, 1, 8)));
+    verifyNoInteractions(sessionRepository);
+  }
+
+  @Test
+  void testExcludeOccurrenceAddsItsDay() {
+    Session stored = Session.builder().id(9L).recurringSessionId(1L).date(at(2024, 1, 8, 10)).build();
+    when(recurringSessionRepository.lockById(1L)).thenReturn(Optional.of(1L));
+    when(recurringSessionRepository.findWithExceptionsById(1L)).thenReturn(Optional.of(weekly));
+
+    recurringSessionService.excludeOccurrence(stored);
+
+    assertTrue(weekly.getExceptions().contains(LocalDate.of(2024, 1, 8)));
+    verify(recurringSessionRepository).save(weekly);
+  }
+
+  @Test
+  void testCreateTruncatesStartAndDefaultsToWeekly() {
+    RecurringSession recurringSession = RecurringSession.builder().startsAt(new Date(1704099600123L)).build();
+    when(recurringSessionRepository.save(recurringSession)).thenReturn(recurringSession);
+
+    RecurringSession created = recurringSessionService.create(recurringSession);
+
+    assertEquals(new Date(1704099600000L), created.getStartsAt());
+    assertEquals(1, created.getIntervalWeeks());
+  }
+
+  @Test
+  void testCreateEndingBeforeItStartsIsRejected() {
+    weekly.setEndsOn(LocalDate.of(2023, 12, 31));
+
+    assertThrows(BadRequestException.class, () -> recurringSessionService.create(weekly));
+    verify(recurringSessionRepository, never()).save(any());
+  }
+
+  @Test
+  void testDeleteDetachesStoredOccurrences() {
+    when(recurringSessionRepository.existsById(1L)).thenReturn(true);
+
+    recurringSessionService.delete(1L);
+
+    verify(sessionRepository).detachOccurrences(1L);
+    verify(recurringSessionRepository).deleteById(1L);
+  }
+
+  @Test
+  void testDeleteNonExistentThrowsNotFound() {
+    assertThrows(NotFoundException.class, () -> recurringSessionService.delete(1L));
+    verifyNoInteractions(sessionRepository);
+  }
+
+  @Test
+  void testFindByIdAndFindAll() {
+    when(recurringSessionRepository.findWithExceptionsById(1L)).thenReturn(Optional.of(weekly));
+    when(recurringSessionRepository.findAllWithExceptions()).thenReturn(Collections.singletonList(weekly));
+
+    assertEquals(weekly, recurringSessionService.findById(1L));
+    assertNull(recurringSessionService.findById(2L));
+    assertEquals(Collections.singletonList(weekly), recurringSessionService.findAll());
+  }
+
+  private static RecurringSession recurringSession(Long id, Date startsAt, int intervalWeeks) {
+    return RecurringSession.builder()
+        .id(id)
+        .name("Recurring " + id)
+        .description("Description")
+        .teacher(Teacher.builder().id(id).build())
+        .startsAt(startsAt)
+        .intervalWeeks(intervalWeeks)
+        .exceptions(new HashSet<>())
+        .build();
+  }
+
+  private static SessionSearch search(LocalDate from, LocalDate to) {
+    SessionSearch search = new SessionSearch();
+    search.setFrom(from);
+    search.setTo(to);
+    return search;
+  }
+
+  private static Date at(int year, int month, int day, int hour) {
+    return Date.from(LocalDateTime.of(year, month, day, hour, 0).atZone(ZoneId.systemDefault()).toInstant());
+  }
+
+  private static List<Date> datesOf(List<Session> sessions) {
+    return sessions.stream().map(Session::getDate).collect(Collectors.toList());
+  }
+}
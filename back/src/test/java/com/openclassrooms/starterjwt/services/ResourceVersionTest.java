@@ -0,0 +1,64 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.ChangeSummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ResourceVersionTest {
+
+  private static final LocalDateTime EARLY = LocalDateTime.of(2024, 1, 1, 10, 0);
+  private static final LocalDateTime LATE = LocalDateTime.of(2024, 1, 2, 10, 0, 0, 123000000);
+
+  @Test
+  void testEntityETagCombinesIdAndUpdateTime() {
+    ResourceVersion version = ResourceVersion.ofEntity(7L, LATE);
+
+    long millis = LATE.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    assertEquals(millis, version.getLastModifiedMillis());
+    assertEquals(millis, version.getLastModifiedHeaderMillis());
+    assertEquals("7-" + millis, version.getETag());
+  }
+
+  @Test
+  void testCollectionIsValidatedByETagOnly() {
+    ChangeSummary summary = mock(ChangeSummary.class);
+    when(summary.getCount()).thenReturn(3L);
+    when(summary.getLastModified()).thenReturn(LATE);
+
+    ResourceVersion version = ResourceVersion.ofCollection(summary).withVariant("summary");
+
+    long millis = LATE.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    assertEquals("3.summary-" + millis, version.getETag());
+    assertEquals(-1, version.getLastModifiedHeaderMillis());
+  }
+
+  @Test
+  void testCollectionFromRowsMatchesCollectionFromSummary() {
+    Teacher first = Teacher.builder().id(1L).updatedAt(EARLY).build();
+    Teacher second = Teacher.builder().id(2L).updatedAt(LATE).build();
+    Teacher third = Teacher.builder().id(3L).build();
+    ChangeSummary summary = mock(ChangeSummary.class);
+    when(summary.getCount()).thenReturn(3L);
+    when(summary.getLastModified()).thenReturn(LATE);
+
+    ResourceVersion fromRows = ResourceVersion.ofCollection(Arrays.asList(first, second, third), Teacher::getUpdatedAt);
+
+    assertEquals(ResourceVersion.ofCollection(summary), fromRows);
+  }
+
+  @Test
+  void testEmptyCollectionHasNoModificationTime() {
+    ResourceVersion version = ResourceVersion.ofCollection(Collections.<Teacher>emptyList(), Teacher::getUpdatedAt);
+
+    assertEquals(-1, version.getLastModifiedMillis());
+    assertEquals("0--1", version.getETag());
+  }
+}
@@ -0,0 +1,56 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionCursorTest {
+
+  @Test
+  void testEncodeDecodeRoundTrip() {
+    SessionCursor cursor = new SessionCursor(new Date(1700000000123L), 42L);
+
+    SessionCursor decoded = SessionCursor.decode(cursor.encode());
+
+    assertEquals(cursor, decoded);
+    assertEquals(1700000000123L, decoded.getDate().getTime());
+    assertEquals(42L, decoded.getId());
+  }
+
+  @Test
+  void testOfUsesSessionDateAndId() {
+    Session session = new Session();
+    session.setId(7L);
+    session.setDate(new Date(5000L));
+
+    SessionCursor cursor = SessionCursor.of(session);
+
+    assertEquals(7L, cursor.getId());
+    assertEquals(new Date(5000L), cursor.getDate());
+  }
+
+  @Test
+  void testDecodeRejectsInvalidBase64() {
+    assertThrows(BadRequestException.class, () -> SessionCursor.decode("***"));
+  }
+
+  @Test
+  void testDecodeRejectsWrongShape() {
+    String value = Base64.getUrlEncoder().encodeToString("123".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(BadRequestException.class, () -> SessionCursor.decode(value));
+  }
+
+  @Test
+  void testDecodeRejectsNonNumericParts() {
+    String value = Base64.getUrlEncoder().encodeToString("abc:def".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(BadRequestException.class, () -> SessionCursor.decode(value));
+  }
+}
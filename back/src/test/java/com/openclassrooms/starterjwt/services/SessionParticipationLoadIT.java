@@ -0,0 +1,133 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.ConflictException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hundreds of users race for the seats of one session: exactly {@code capacity} of them must get in.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class SessionParticipationLoadIT {
+  private static final int CAPACITY = 50;
+  private static final int CONCURRENT_JOINS = 300;
+
+  @Autowired
+  private SessionService sessionService;
+
+  @Autowired
+  private SessionRepository sessionRepository;
+
+  @Autowired
+  private TeacherRepository teacherRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private Session session;
+  private List<User> users;
+
+  @BeforeEach
+  void setUp() {
+    Teacher teacher = teacherRepository.save(Teacher.builder().lastName("Load").firstName("Test").build());
+    session = sessionRepository.save(Session.builder()
+        .name("Sold out class")
+        .date(new Date())
+        .description("Popular")
+        .teacher(teacher)
+        .capacity(CAPACITY)
+        .build());
+
+    List<User> newUsers = new ArrayList<>();
+    for (int i = 0; i < CONCURRENT_JOINS; i++) {
+      newUsers.add(new User("load" + i + "@example.com", "User", "Load", "password", false));
+    }
+    users = userRepository.saveAll(newUsers);
+  }
+
+  @AfterEach
+  void tearDown() {
+    sessionRepository.deleteById(session.getId());
+    userRepository.deleteAll(users);
+  }
+
+  @Test
+  void testConcurrentJoinsNeverOversellTheSession() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(100);
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger joined = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (User user : users) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        try {
+          sessionService.participate(session.getId(), user.getId());
+          joined.incrementAndGet();
+        } catch (ConflictException e) {
+          rejected.incrementAndGet();
+        }
+        return null;
+      }));
+    }
+
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(60, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertEquals(CAPACITY, joined.get());
+    assertEquals(CONCURRENT_JOINS - CAPACITY, rejected.get());
+    assertEquals(CAPACITY, countParticipants());
+    assertEquals(CAPACITY, sessionRepository.findById(session.getId()).get().getParticipantCount());
+  }
+
+  @Test
+  void testLeavingFreesASeat() {
+    for (int i = 0; i < CAPACITY; i++) {
+      sessionService.participate(session.getId(), users.get(i).getId());
+    }
+    assertThrows(ConflictException.class,
+        () -> sessionService.participate(session.getId(), users.get(CAPACITY).getId()));
+
+    sessionService.noLongerParticipate(session.getId(), users.get(0).getId());
+    sessionService.participate(session.getId(), users.get(CAPACITY).getId());
+
+    assertEquals(CAPACITY, countParticipants());
+    assertEquals(CAPACITY, sessionRepository.findById(session.getId()).get().getParticipantCount());
+  }
+
+  private int countParticipants() {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?", Integer.class,
+        session.getId());
+  }
+}
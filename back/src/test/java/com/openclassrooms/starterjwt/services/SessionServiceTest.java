@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.ConflictException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
@@ -8,63 +9,315 @@ import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class SessionServiceTest {
   private SessionRepository sessionRepository;
   private UserRepository userRepository;
+  private RecurringSessionService recurringSessionService;
   private SessionService sessionService;
 
   @BeforeEach
   void setUp() {
     sessionRepository = mock(SessionRepository.class);
     userRepository = mock(UserRepository.class);
-    sessionService = new SessionService(sessionRepository, userRepository);
+    recurringSessionService = mock(RecurringSessionService.class);
+    sessionService = new SessionService(sessionRepository, userRepository, recurringSessionService);
   }
 
   @Test
   void testCreateSession() {
     Session session = new Session();
-    when(sessionRepository.save(any(Session.class))).thenReturn(session);
+    session.setId(1L);
+    when(sessionRepository.saveAndFlush(any(Session.class))).thenReturn(session);
 
     Session createdSession = sessionService.create(session);
 
     assertNotNull(createdSession);
-    verify(sessionRepository).save(session);
+    verify(sessionRepository).saveAndFlush(session);
+    verify(sessionRepository).refreshParticipantCount(1L);
+  }
+
+  @Test
+  void testCreateAllRecountsSeatsOfSessionsWithParticipantsOnly() {
+    Session empty = Session.builder().id(1L).users(new ArrayList<>()).build();
+    Session attended = Session.builder().id(2L).users(Collections.singletonList(new User())).build();
+    List<Session> sessions = Arrays.asList(empty, attended);
+    when(sessionRepository.saveAll(sessions)).thenReturn(sessions);
+
+    assertEquals(sessions, sessionService.createAll(sessions));
+
+    verify(sessionRepository).flush();
+    verify(sessionRepository).refreshParticipantCounts(Collections.singletonList(2L));
+  }
+
+  @Test
+  void testCreateAllWithoutParticipantsSkipsTheRecount() {
+    List<Session> sessions = Collections.singletonList(Session.builder().id(1L).build());
+    when(sessionRepository.saveAll(sessions)).thenReturn(sessions);
+
+    sessionService.createAll(sessions);
+
+    verify(sessionRepository, never()).refreshParticipantCounts(any());
+  }
+
+  @Test
+  void testCreateAllWithMoreParticipantsThanSeatsIsRejected() {
+    User first = new User();
+    first.setId(1L);
+    User second = new User();
+    second.setId(2L);
+    List<Session> sessions = Arrays.asList(Session.builder().capacity(2).users(Arrays.asList(first, second)).build(),
+        Session.builder().capacity(1).users(Arrays.asList(first, second)).build());
+
+    BadRequestException exception = assertThrows(BadRequestException.class, () -> sessionService.createAll(sessions));
+
+    assertEquals("Session 2: users must not exceed capacity", exception.getMessage());
+    verifyNoInteractions(sessionRepository);
+  }
+
+  @Test
+  void testCreateAndUpdateWithMoreParticipantsThanSeatsAreRejected() {
+    User user = new User();
+    user.setId(1L);
+    Session session = Session.builder().capacity(0).users(Collections.singletonList(user)).build();
+
+    assertThrows(BadRequestException.class, () -> sessionService.create(session));
+    assertThrows(BadRequestException.class, () -> sessionService.update(1L, session));
+    verifyNoInteractions(sessionRepository);
   }
 
   @Test
   void testDeleteSession() {
-    Long sessionId = 1L;
+    Session session = Session.builder().id(1L).build();
+    when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
 
-    sessionService.delete(sessionId);
+    sessionService.delete(1L);
 
-    verify(sessionRepository).deleteById(sessionId);
+    verify(sessionRepository).delete(session);
+    verifyNoInteractions(recurringSessionService);
+  }
+
+  @Test
+  void testParticipateInOccurrenceJoinsTheStoredOccurrence() {
+    LocalDate day = LocalDate.of(2024, 1, 8);
+    when(recurringSessionService.materialize(2L, day)).thenReturn(Session.builder().id(1L).build());
+    when(sessionRepository.existsById(1L)).thenReturn(true);
+    when(userRepository.existsById(3L)).thenReturn(true);
+    when(sessionRepository.reserveSeat(1L)).thenReturn(1);
+
+    assertEquals(1L, sessionService.participateInOccurrence(2L, day, 3L));
+    verify(sessionRepository).addParticipant(1L, 3L);
+  }
+
+  @Test
+  void testDeleteStoredOccurrenceCancelsItOnItsTemplate() {
+    Session occurrence = Session.builder().id(1L).recurringSessionId(2L).date(new Date()).build();
+    when(sessionRepository.findById(1L)).thenReturn(Optional.of(occurrence));
+
+    sessionService.delete(1L);
+
+    verify(recurringSessionService).excludeOccurrence(occurrence);
+    verify(sessionRepository).delete(occurrence);
   }
 
   @Test
   void testFindAllSessions() {
     List<Session> sessions = new ArrayList<>();
-    when(sessionRepository.findAll()).thenReturn(sessions);
+    when(sessionRepository.findAllWithUsers()).thenReturn(sessions);
 
-    List<Session> result = sessionService.findAll();
+    List<Session> result = sessionService.findAll(true);
 
     assertEquals(sessions, result);
-    verify(sessionRepository).findAll();
+    verify(sessionRepository).findAllWithUsers();
+  }
+
+  @Test
+  void testFindAllWithoutParticipantsLoadsTeachersOnly() {
+    List<Session> sessions = new ArrayList<>();
+    when(sessionRepository.findAllWithTeacher()).thenReturn(sessions);
+
+    assertEquals(sessions, sessionService.findAll(false));
+    verify(sessionRepository, never()).findAllWithUsers();
+  }
+
+  @Test
+  void testFindPageWithoutParticipantsSkipsThem() {
+    Session first = new Session();
+    first.setId(3L);
+    when(sessionRepository.findFirstPage(PageRequest.of(0, 1))).thenReturn(Collections.singletonList(first));
+
+    sessionService.findPage(null, 1, false);
+
+    verify(sessionRepository, never()).fetchUsers(any());
+  }
+
+  @Test
+  void testFindPageWithoutCursorReadsFirstPage() {
+    List<Session> sessions = new ArrayList<>();
+    when(sessionRepository.findFirstPage(PageRequest.of(0, 10))).thenReturn(sessions);
+
+    List<Session> result = sessionService.findPage(null, 10, true);
+
+    assertEquals(sessions, result);
+    verify(sessionRepository, never()).findPageAfter(any(), any(), any());
+    verify(sessionRepository, never()).fetchUsers(any());
+  }
+
+  @Test
+  void testFindPageFetchesParticipantsOfThePageInOneCall() {
+    Session first = new Session();
+    first.setId(3L);
+    Session second = new Session();
+    second.setId(4L);
+    List<Session> sessions = Arrays.asList(first, second);
+    when(sessionRepository.findFirstPage(PageRequest.of(0, 2))).thenReturn(sessions);
+
+    List<Session> result = sessionService.findPage(null, 2, true);
+
+    assertEquals(sessions, result);
+    verify(sessionRepository, times(1)).fetchUsers(Arrays.asList(3L, 4L));
+  }
+
+  @Test
+  void testFindPageWithCursorReadsAfterCursor() {
+    Date date = new Date(1000L);
+    List<Session> sessions = new ArrayList<>();
+    when(sessionRepository.findPageAfter(date, 5L, PageRequest.of(0, 10))).thenReturn(sessions);
+
+    List<Session> result = sessionService.findPage(new SessionCursor(date, 5L), 10, true);
+
+    assertEquals(sessions, result);
+    verify(sessionRepository, never()).findFirstPage(any());
+  }
+
+  @Test
+  void testSearchFetchesParticipantsOfTheResults() {
+    Session first = new Session();
+    first.setId(3L);
+    List<Session> sessions = Collections.singletonList(first);
+    SessionSearch search = new SessionSearch();
+    search.setText("yoga");
+    when(sessionRepository.search(any(), eq(11))).thenReturn(sessions);
+
+    List<Session> result = sessionService.search(search, new SessionCursor(new Date(1000L), 2L), 11, true);
+
+    assertEquals(sessions, result);
+    verify(sessionRepository).fetchUsers(Collections.singletonList(3L));
+  }
+
+  @Test
+  void testSearchWithoutResultsSkipsParticipants() {
+    when(sessionRepository.search(any(), eq(5))).thenReturn(new ArrayList<>());
+
+    assertTrue(sessionService.search(new SessionSearch(), null, 5, true).isEmpty());
+    verify(sessionRepository, never()).fetchUsers(any());
+  }
+
+  @Test
+  void testSearchMergesOccurrencesOfRecurringSessionsInListingOrder() {
+    Session stored = Session.builder().id(3L).date(new Date(2000L)).build();
+    Session earlier = Session.builder().recurringSessionId(1L).date(new Date(1000L)).build();
+    Session sameDate = Session.builder().recurringSessionId(2L).date(new Date(2000L)).build();
+    Session later = Session.builder().recurringSessionId(1L).date(new Date(3000L)).build();
+    SessionSearch search = new SessionSearch();
+    when(sessionRepository.search(any(), eq(3))).thenReturn(Collections.singletonList(stored));
+    when(recurringSessionService.findOccurrences(search, null, 3)).thenReturn(Arrays.asList(earlier, sameDate, later));
+
+    List<Session> result = sessionService.search(search, null, 3, false);
+
+    assertEquals(Arrays.asList(earlier, sameDate, stored), result);
+  }
+
+  @Test
+  void testSearchWithReversedDateRangeIsRejected() {
+    SessionSearch search = new SessionSearch();
+    search.setFrom(LocalDate.of(2024, 2, 1));
+    search.setTo(LocalDate.of(2024, 1, 1));
+
+    assertThrows(BadRequestException.class, () -> sessionService.search(search, null, 5, true));
+    verifyNoInteractions(sessionRepository);
+  }
+
+  @Test
+  void testGetSummaryByIdLoadsTeacherOnly() {
+    Session session = new Session();
+    when(sessionRepository.findWithTeacherById(1L)).thenReturn(Optional.of(session));
+
+    assertEquals(session, sessionService.getSummaryById(1L));
+    verify(sessionRepository, never()).findWithUsersById(any());
+  }
+
+  @Test
+  void testFindParticipantsStartsAfterCursor() {
+    List<User> users = Collections.singletonList(new User());
+    when(sessionRepository.findParticipants(1L, 0L, PageRequest.of(0, 5))).thenReturn(users);
+    when(sessionRepository.findParticipants(1L, 9L, PageRequest.of(0, 5))).thenReturn(new ArrayList<>());
+    when(sessionRepository.existsById(1L)).thenReturn(true);
+
+    assertEquals(users, sessionService.findParticipants(1L, null, 5));
+    assertTrue(sessionService.findParticipants(1L, 9L, 5).isEmpty());
+  }
+
+  @Test
+  void testFindParticipantsOfUnknownSessionIsNotFound() {
+    when(sessionRepository.findParticipants(1L, 0L, PageRequest.of(0, 5))).thenReturn(new ArrayList<>());
+    when(sessionRepository.existsById(1L)).thenReturn(false);
+
+    assertThrows(NotFoundException.class, () -> sessionService.findParticipants(1L, null, 5));
+  }
+
+  @Test
+  void testFindPageOfUserStartsAfterCursor() {
+    Date date = new Date();
+    List<Session> sessions = Collections.singletonList(new Session());
+    when(sessionRepository.findFirstPageOfUser(3L, PageRequest.of(0, 5))).thenReturn(sessions);
+    when(sessionRepository.findPageOfUserAfter(3L, date, 7L, PageRequest.of(0, 5))).thenReturn(new ArrayList<>());
+    when(userRepository.existsById(3L)).thenReturn(true);
+
+    assertEquals(sessions, sessionService.findPageOfUser(3L, null, 5));
+    assertTrue(sessionService.findPageOfUser(3L, new SessionCursor(date, 7L), 5).isEmpty());
+    verify(sessionRepository, never()).fetchUsers(any());
+  }
+
+  @Test
+  void testFindPageOfUnknownUserIsNotFound() {
+    when(sessionRepository.findFirstPageOfUser(3L, PageRequest.of(0, 5))).thenReturn(new ArrayList<>());
+    when(userRepository.existsById(3L)).thenReturn(false);
+
+    assertThrows(NotFoundException.class, () -> sessionService.findPageOfUser(3L, null, 5));
+  }
+
+  @Test
+  void testCountParticipantsReadsTheSeatCounter() {
+    when(sessionRepository.findParticipantCountById(1L)).thenReturn(Optional.of(4));
+    when(sessionRepository.findParticipantCountById(2L)).thenReturn(Optional.empty());
+
+    assertEquals(4, sessionService.countParticipants(1L));
+    assertThrows(NotFoundException.class, () -> sessionService.countParticipants(2L));
   }
 
   @Test
   void testGetByIdFound() {
     Long sessionId = 1L;
     Session session = new Session();
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+    when(sessionRepository.findWithUsersById(sessionId)).thenReturn(Optional.of(session));
 
     Session result = sessionService.getById(sessionId);
 
@@ -74,7 +327,7 @@ class SessionServiceTest {
   @Test
   void testGetByIdNotFound() {
     Long sessionId = 1L;
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
+    when(sessionRepository.findWithUsersById(sessionId)).thenReturn(Optional.empty());
 
     Session result = sessionService.getById(sessionId);
 
@@ -87,15 +340,16 @@ class SessionServiceTest {
     Session existingSession = new Session();
     existingSession.setId(sessionId);
 
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(existingSession));
-    when(sessionRepository.save(any(Session.class))).thenReturn(existingSession);
+    when(sessionRepository.findWithUsersById(sessionId)).thenReturn(Optional.of(existingSession));
+    when(sessionRepository.saveAndFlush(any(Session.class))).thenReturn(existingSession);
 
     Session updatedSession = new Session();
 
     Session result = sessionService.update(sessionId, updatedSession);
 
     assertEquals(existingSession, result);
-    verify(sessionRepository).save(updatedSession);
+    verify(sessionRepository).saveAndFlush(updatedSession);
+    verify(sessionRepository).refreshParticipantCount(sessionId);
   }
 
   @Test
@@ -103,19 +357,17 @@ class SessionServiceTest {
     Long sessionId = 1L;
     Long userId = 2L;
 
-    User user = new User();
-    user.setId(userId);
-
-    Session session = new Session();
-    session.setUsers(new ArrayList<>());
-
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-    when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+    when(sessionRepository.existsById(sessionId)).thenReturn(true);
+    when(userRepository.existsById(userId)).thenReturn(true);
+    when(sessionRepository.countParticipation(sessionId, userId)).thenReturn(0L);
+    when(sessionRepository.reserveSeat(sessionId)).thenReturn(1);
 
     sessionService.participate(sessionId, userId);
 
-    assertTrue(session.getUsers().contains(user));
-    verify(sessionRepository).save(session);
+    verify(sessionRepository).reserveSeat(sessionId);
+    verify(sessionRepository).addParticipant(sessionId, userId);
+    verify(sessionRepository, never()).findWithUsersById(any());
+    verify(sessionRepository, never()).save(any());
   }
 
   @Test
@@ -123,22 +375,25 @@ class SessionServiceTest {
     Long sessionId = 1L;
     Long userId = 2L;
 
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
+    when(sessionRepository.existsById(sessionId)).thenReturn(false);
 
     assertThrows(NotFoundException.class, () -> {
       sessionService.participate(sessionId, userId);
     });
+    verify(sessionRepository, never()).addParticipant(any(), any());
   }
 
   @Test
   void testParticipateUserNotFound() {
     Long sessionId = 1L;
 
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
+    when(sessionRepository.existsById(sessionId)).thenReturn(true);
+    when(userRepository.existsById(2L)).thenReturn(false);
 
     assertThrows(NotFoundException.class, () -> {
       sessionService.participate(sessionId, 2L);
     });
+    verify(sessionRepository, never()).addParticipant(any(), any());
   }
 
   @Test
@@ -146,74 +401,76 @@ class SessionServiceTest {
     Long sessionId = 1L;
     Long userId = 2L;
 
-    User user = new User();
-    user.setId(userId);
-
-    Session session = new Session();
-    List<User> users = new ArrayList<>();
-    users.add(user);
-
-    session.setUsers(users);
-
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-    when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+    when(sessionRepository.existsById(sessionId)).thenReturn(true);
+    when(userRepository.existsById(userId)).thenReturn(true);
+    when(sessionRepository.countParticipation(sessionId, userId)).thenReturn(1L);
 
     assertThrows(BadRequestException.class, () -> {
       sessionService.participate(sessionId, userId);
     });
+    verify(sessionRepository, never()).addParticipant(any(), any());
   }
 
   @Test
-  void testNoLongerParticipateSuccess() {
+  void testParticipateConcurrentDuplicateIsRejected() {
     Long sessionId = 1L;
     Long userId = 2L;
 
-    User user = new User();
-    user.setId(userId);
-
-    Session session = new Session();
-    List<User> users = new ArrayList<>();
-    users.add(user);
-
-    session.setUsers(users);
-
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-
-    sessionService.noLongerParticipate(sessionId, userId);
+    when(sessionRepository.existsById(sessionId)).thenReturn(true);
+    when(userRepository.existsById(userId)).thenReturn(true);
+    when(sessionRepository.countParticipation(sessionId, userId)).thenReturn(0L);
+    when(sessionRepository.reserveSeat(sessionId)).thenReturn(1);
+    when(sessionRepository.addParticipant(sessionId, userId))
+        .thenThrow(new DataIntegrityViolationException("UK_PARTICIPATE_SESSION_USER"));
 
-    assertFalse(session.getUsers().contains(user));
-    verify(sessionRepository).save(session);
+    assertThrows(BadRequestException.class, () -> {
+      sessionService.participate(sessionId, userId);
+    });
   }
 
   @Test
-  void testNoLongerParticipateUserNotFound() {
+  void testParticipateInFullSessionIsRejected() {
     Long sessionId = 1L;
+    Long userId = 2L;
 
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
+    when(sessionRepository.existsById(sessionId)).thenReturn(true);
+    when(userRepository.existsById(userId)).thenReturn(true);
+    when(sessionRepository.countParticipation(sessionId, userId)).thenReturn(0L);
+    when(sessionRepository.reserveSeat(sessionId)).thenReturn(0);
 
-    assertThrows(NotFoundException.class, () -> {
-      sessionService.noLongerParticipate(sessionId, 2L);
+    assertThrows(ConflictException.class, () -> {
+      sessionService.participate(sessionId, userId);
     });
+    verify(sessionRepository, never()).addParticipant(any(), any());
   }
 
   @Test
-  void testNoLongerParticipateUserNotInSession() {
+  void testNoLongerParticipateSuccess() {
     Long sessionId = 1L;
     Long userId = 2L;
 
-    User user = new User();
-    user.setId(userId);
+    when(sessionRepository.removeParticipant(sessionId, userId)).thenReturn(1);
 
-    Session session = new Session();
-    List<User> users = new ArrayList<>();
+    sessionService.noLongerParticipate(sessionId, userId);
+
+    verify(sessionRepository).removeParticipant(sessionId, userId);
+    verify(sessionRepository).releaseSeat(sessionId);
+    verify(sessionRepository, never()).existsById(any());
+    verify(sessionRepository, never()).save(any());
+  }
 
-    session.setUsers(users);
+  @Test
+  void testNoLongerParticipateUserNotInSession() {
+    Long sessionId = 1L;
+    Long userId = 2L;
 
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+    when(sessionRepository.removeParticipant(sessionId, userId)).thenReturn(0);
+    when(sessionRepository.existsById(sessionId)).thenReturn(true);
 
     assertThrows(BadRequestException.class, () -> {
       sessionService.noLongerParticipate(sessionId, userId);
     });
+    verify(sessionRepository, never()).releaseSeat(any());
   }
 
   @Test
@@ -221,7 +478,8 @@ class SessionServiceTest {
     Long sessionId = 1L;
     Long userId = 2L;
 
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
+    when(sessionRepository.removeParticipant(sessionId, userId)).thenReturn(0);
+    when(sessionRepository.existsById(sessionId)).thenReturn(false);
 
     assertThrows(NotFoundException.class, () -> {
       sessionService.noLongerParticipate(sessionId, userId);
@@ -229,35 +487,65 @@ class SessionServiceTest {
   }
 
   @Test
-  void testNoLongerParticipateWithMultipleUsers() {
-    Long sessionId = 1L;
-    Long userId1 = 1L;
-    Long userId2 = 2L;
-    Long userId3 = 3L;
+  void testParticipateAllReportsEveryIdAndInsertsOnce() {
+    when(sessionRepository.lockFreeSeats(1L)).thenReturn(Optional.of(1L));
+    when(userRepository.findExistingIds(new LinkedHashSet<>(Arrays.asList(2L, 3L, 4L, 5L))))
+        .thenReturn(Arrays.asList(2L, 3L, 4L));
+    when(sessionRepository.findParticipantIds(eq(1L), any())).thenReturn(Collections.singletonList(3L));
+
+    Map<Long, ParticipationStatus> outcomes = sessionService.participateAll(1L, Arrays.asList(2L, 3L, 4L, 5L, 2L));
+
+    assertEquals(Arrays.asList(2L, 3L, 4L, 5L), new ArrayList<>(outcomes.keySet()));
+    assertEquals(ParticipationStatus.ADDED, outcomes.get(2L));
+    assertEquals(ParticipationStatus.ALREADY_PARTICIPATING, outcomes.get(3L));
+    assertEquals(ParticipationStatus.SESSION_FULL, outcomes.get(4L));
+    assertEquals(ParticipationStatus.UNKNOWN_USER, outcomes.get(5L));
+    verify(sessionRepository).addParticipants(1L, Collections.singletonList(2L));
+    verify(sessionRepository).refreshParticipantCount(1L);
+  }
+
+  @Test
+  void testParticipateAllWithNothingToAddWritesNothing() {
+    when(sessionRepository.lockFreeSeats(1L)).thenReturn(Optional.of(10L));
+    when(userRepository.findExistingIds(any())).thenReturn(new ArrayList<>());
 
-    User user1 = new User();
-    user1.setId(userId1);
-    User user2 = new User();
-    user2.setId(userId2);
-    User user3 = new User();
-    user3.setId(userId3);
+    Map<Long, ParticipationStatus> outcomes = sessionService.participateAll(1L, Collections.singletonList(9L));
 
-    Session session = new Session();
-    List<User> users = new ArrayList<>();
-    users.add(user1);
-    users.add(user2);
-    users.add(user3);
+    assertEquals(ParticipationStatus.UNKNOWN_USER, outcomes.get(9L));
+    verify(sessionRepository, never()).findParticipantIds(any(), any());
+    verify(sessionRepository, never()).addParticipants(any(), any());
+    verify(sessionRepository, never()).refreshParticipantCount(any());
+  }
 
-    session.setUsers(users);
+  @Test
+  void testParticipateAllRejectsUnknownSessionAndNullIds() {
+    when(sessionRepository.lockFreeSeats(1L)).thenReturn(Optional.empty());
+    when(sessionRepository.lockFreeSeats(2L)).thenReturn(Optional.of(10L));
 
-    when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+    assertThrows(NotFoundException.class, () -> sessionService.participateAll(1L, Collections.singletonList(3L)));
+    assertThrows(BadRequestException.class, () -> sessionService.participateAll(2L, Arrays.asList(3L, null)));
+    verify(sessionRepository, never()).addParticipants(any(), any());
+  }
+
+  @Test
+  void testNoLongerParticipateAllRemovesParticipantsOnly() {
+    when(sessionRepository.lockFreeSeats(1L)).thenReturn(Optional.of(0L));
+    when(sessionRepository.findParticipantIds(1L, new LinkedHashSet<>(Arrays.asList(2L, 3L))))
+        .thenReturn(Collections.singletonList(3L));
 
-    sessionService.noLongerParticipate(sessionId, userId2);
+    Map<Long, ParticipationStatus> outcomes = sessionService.noLongerParticipateAll(1L, Arrays.asList(2L, 3L));
+
+    assertEquals(ParticipationStatus.NOT_PARTICIPATING, outcomes.get(2L));
+    assertEquals(ParticipationStatus.REMOVED, outcomes.get(3L));
+    verify(sessionRepository).removeParticipants(1L, Collections.singleton(3L));
+    verify(sessionRepository).refreshParticipantCount(1L);
+  }
+
+  @Test
+  void testNoLongerParticipateAllInUnknownSessionIsNotFound() {
+    when(sessionRepository.lockFreeSeats(1L)).thenReturn(Optional.empty());
 
-    assertFalse(session.getUsers().contains(user2));
-    assertTrue(session.getUsers().contains(user1));
-    assertTrue(session.getUsers().contains(user3));
-    assertEquals(2, session.getUsers().size());
-    verify(sessionRepository).save(session);
+    assertThrows(NotFoundException.class, () -> sessionService.noLongerParticipateAll(1L, Collections.singletonList(2L)));
+    verify(sessionRepository, never()).removeParticipants(any(), any());
   }
 }
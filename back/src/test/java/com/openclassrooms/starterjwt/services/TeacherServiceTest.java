@@ -4,10 +4,14 @@ import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -15,61 +19,107 @@ import static org.mockito.Mockito.*;
 class TeacherServiceTest {
   private TeacherRepository teacherRepository;
   private TeacherService teacherService;
+  private Teacher teacher1;
+  private Teacher teacher2;
 
   @BeforeEach
   void setUp() {
     teacherRepository = mock(TeacherRepository.class);
-    teacherService = new TeacherService(teacherRepository);
-  }
+    teacherService = new TeacherService(teacherRepository, new CaffeineCacheManager(TeacherService.CACHE_NAME));
 
-  @Test
-  void testFindAll() {
-    // Arrange
-    Teacher teacher1 = new Teacher();
+    teacher1 = new Teacher();
     teacher1.setId(1L);
-    Teacher teacher2 = new Teacher();
+    teacher2 = new Teacher();
     teacher2.setId(2L);
-    List<Teacher> expectedTeachers = Arrays.asList(teacher1, teacher2);
-
-    when(teacherRepository.findAll()).thenReturn(expectedTeachers);
+    when(teacherRepository.findAll()).thenReturn(Arrays.asList(teacher1, teacher2));
+  }
 
+  @Test
+  void testFindAll() {
     // Act
     List<Teacher> actualTeachers = teacherService.findAll();
 
     // Assert
-    assertEquals(expectedTeachers, actualTeachers);
+    assertEquals(Arrays.asList(teacher1, teacher2), actualTeachers);
     verify(teacherRepository).findAll();
   }
 
   @Test
   void testFindById_ExistingTeacher() {
-    // Arrange
-    Long teacherId = 1L;
-    Teacher expectedTeacher = new Teacher();
-    expectedTeacher.setId(teacherId);
-
-    when(teacherRepository.findById(teacherId)).thenReturn(Optional.of(expectedTeacher));
-
     // Act
-    Teacher actualTeacher = teacherService.findById(teacherId);
+    Teacher actualTeacher = teacherService.findById(2L);
 
     // Assert
     assertNotNull(actualTeacher);
-    assertEquals(expectedTeacher, actualTeacher);
-    verify(teacherRepository).findById(teacherId);
+    assertEquals(teacher2, actualTeacher);
   }
 
   @Test
   void testFindById_NonExistingTeacher() {
-    // Arrange
-    Long teacherId = 1L;
-    when(teacherRepository.findById(teacherId)).thenReturn(Optional.empty());
-
     // Act
-    Teacher actualTeacher = teacherService.findById(teacherId);
+    Teacher actualTeacher = teacherService.findById(3L);
 
     // Assert
     assertNull(actualTeacher);
-    verify(teacherRepository).findById(teacherId);
+  }
+
+  @Test
+  void testReadsAreServedFromTheCachedCatalog() {
+    teacherService.findAll();
+    teacherService.findById(1L);
+    teacherService.findById(3L);
+    teacherService.findAllVersion();
+
+    verify(teacherRepository, times(1)).findAll();
+    verifyNoMoreInteractions(teacherRepository);
+  }
+
+  @Test
+  void testEvictCatalogReloadsOnNextRead() {
+    teacherService.findAll();
+    Teacher teacher3 = new Teacher();
+    teacher3.setId(3L);
+    when(teacherRepository.findAll()).thenReturn(Arrays.asList(teacher1, teacher2, teacher3));
+
+    teacherService.evictCatalog();
+
+    assertEquals(teacher3, teacherService.findById(3L));
+    verify(teacherRepository, times(2)).findAll();
+  }
+
+  @Test
+  void testWarmUpLoadsTheCatalog() {
+    teacherService.warmUp();
+    teacherService.findById(1L);
+
+    verify(teacherRepository, times(1)).findAll();
+  }
+
+  @Test
+  void testWarmUpToleratesAnUnreachableDatabase() {
+    when(teacherRepository.findAll()).thenThrow(new DataAccessResourceFailureException("down"));
+
+    assertDoesNotThrow(() -> teacherService.warmUp());
+  }
+
+  @Test
+  void testFindAllVersionUsesTheLatestUpdate() {
+    teacher1.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+    teacher2.setUpdatedAt(LocalDateTime.of(2024, 1, 2, 10, 0));
+
+    ResourceVersion version = teacherService.findAllVersion();
+
+    assertEquals(new ResourceVersion("2", teacher2.getUpdatedAt()).getETag(), version.getETag());
+  }
+
+  @Test
+  void testWithoutCacheEveryReadLoads() {
+    teacherService = new TeacherService(teacherRepository, new NoOpCacheManager());
+    when(teacherRepository.findAll()).thenReturn(Collections.singletonList(teacher1));
+
+    teacherService.findById(1L);
+    teacherService.findById(1L);
+
+    verify(teacherRepository, times(2)).findAll();
   }
 }
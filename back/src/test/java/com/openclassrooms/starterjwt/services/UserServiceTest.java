@@ -1,13 +1,22 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -18,20 +27,66 @@ class UserServiceTest {
   @Mock
   private UserRepository userRepository;
 
+  @Mock
+  private CacheManager cacheManager;
+
+  @Mock
+  private Cache userDetailsCache;
+
   private UserService userService;
 
   @BeforeEach
   void setUp() {
-    userService = new UserService(userRepository);
+    userService = new UserService(userRepository, cacheManager);
   }
 
   @Test
   void testDelete() {
     Long userId = 1L;
+    User user = new User();
+    user.setId(userId);
+    user.setEmail("test@example.com");
+    when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+    when(cacheManager.getCache(UserDetailsServiceImpl.CACHE_NAME)).thenReturn(userDetailsCache);
 
     userService.delete(userId);
 
-    verify(userRepository, times(1)).deleteById(userId);
+    verify(userRepository, times(1)).delete(user);
+    verify(userDetailsCache).evict("test@example.com");
+  }
+
+  @Test
+  void testDeleteUnknownUser() {
+    when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+    userService.delete(1L);
+
+    verify(userRepository, never()).delete(any());
+    verifyNoInteractions(cacheManager);
+  }
+
+  @Test
+  void testEvictUserDetailsWaitsForTheCommit() {
+    when(cacheManager.getCache(UserDetailsServiceImpl.CACHE_NAME)).thenReturn(userDetailsCache);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      userService.evictUserDetails("test@example.com");
+      verify(userDetailsCache, never()).evict(any());
+
+      TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    verify(userDetailsCache).evict("test@example.com");
+  }
+
+  @Test
+  void testEvictUserDetailsWithoutCache() {
+    when(cacheManager.getCache(UserDetailsServiceImpl.CACHE_NAME)).thenReturn(null);
+
+    assertDoesNotThrow(() -> userService.evictUserDetails("test@example.com"));
   }
 
   @Test
@@ -60,4 +115,48 @@ class UserServiceTest {
     assertNull(result);
     verify(userRepository, times(1)).findById(userId);
   }
+
+  @Test
+  void testFindAllByIdsResolvesInOneQueryKeepingRequestOrder() {
+    User user1 = new User();
+    user1.setId(1L);
+    User user2 = new User();
+    user2.setId(2L);
+    when(userRepository.findAllById(any())).thenReturn(Arrays.asList(user1, user2));
+
+    List<User> result = userService.findAllByIds(Arrays.asList(2L, 1L, 2L));
+
+    assertEquals(Arrays.asList(user2, user1), result);
+    verify(userRepository, times(1)).findAllById(any());
+    verify(userRepository, never()).findById(any());
+  }
+
+  @Test
+  void testFindAllByIdsWithEmptyIdsSkipsTheQuery() {
+    List<User> result = userService.findAllByIds(Collections.emptyList());
+
+    assertTrue(result.isEmpty());
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void testFindAllByIdsRejectsNullIds() {
+    BadRequestException exception = assertThrows(BadRequestException.class,
+        () -> userService.findAllByIds(Arrays.asList(1L, null)));
+
+    assertEquals("User ids must not be null", exception.getMessage());
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void testFindAllByIdsReportsUnknownIds() {
+    User user1 = new User();
+    user1.setId(1L);
+    when(userRepository.findAllById(any())).thenReturn(Collections.singletonList(user1));
+
+    BadRequestException exception = assertThrows(BadRequestException.class,
+        () -> userService.findAllByIds(Arrays.asList(1L, 5L, 7L)));
+
+    assertEquals("Unknown user ids: [5, 7]", exception.getMessage());
+  }
 }
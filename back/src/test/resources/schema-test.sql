@@ -9,15 +9,42 @@ CREATE TABLE TEACHERS (
 );
 
 CREATE TABLE SESSIONS (
-  id INT AUTO_INCREMENT PRIMARY KEY,
+  id INT PRIMARY KEY,
   name VARCHAR,
   description VARCHAR,
   date TIMESTAMP,
   teacher_id INT,
+  capacity INT,
+  participant_count INT NOT NULL DEFAULT 0,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  recurring_session_id INT,
+  CONSTRAINT UK_SESSIONS_OCCURRENCE UNIQUE (recurring_session_id, date)
+);
+
+CREATE TABLE SESSIONS_SEQ (
+  next_val BIGINT NOT NULL
+);
+
+CREATE TABLE RECURRING_SESSIONS (
+  id INT AUTO_INCREMENT PRIMARY KEY,
+  name VARCHAR,
+  description VARCHAR,
+  teacher_id INT,
+  capacity INT,
+  starts_at TIMESTAMP NOT NULL,
+  ends_on DATE,
+  interval_weeks INT NOT NULL DEFAULT 1,
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE TABLE RECURRING_SESSION_EXCEPTIONS (
+  recurring_session_id INT NOT NULL,
+  occurrence_date DATE NOT NULL,
+  PRIMARY KEY (recurring_session_id, occurrence_date)
+);
+
 CREATE TABLE USERS (
   id INT AUTO_INCREMENT PRIMARY KEY,
   last_name VARCHAR,
@@ -30,15 +57,25 @@ CREATE TABLE USERS (
 );
 
 CREATE TABLE PARTICIPATE (
-  user_id INT,
-  session_id INT
+  user_id INT NOT NULL,
+  session_id INT NOT NULL,
+  PRIMARY KEY (session_id, user_id)
 );
 
+CREATE INDEX IDX_PARTICIPATE_USER ON PARTICIPATE (user_id);
+CREATE INDEX IDX_SESSIONS_DATE ON SESSIONS (date, id);
+CREATE INDEX IDX_SESSIONS_TEACHER_DATE ON SESSIONS (teacher_id, date, id);
+
 ALTER TABLE SESSIONS ADD FOREIGN KEY (teacher_id) REFERENCES TEACHERS (id);
 ALTER TABLE PARTICIPATE ADD FOREIGN KEY (user_id) REFERENCES USERS (id);
 ALTER TABLE PARTICIPATE ADD FOREIGN KEY (session_id) REFERENCES SESSIONS (id);
+ALTER TABLE SESSIONS ADD FOREIGN KEY (recurring_session_id) REFERENCES RECURRING_SESSIONS (id);
+ALTER TABLE RECURRING_SESSIONS ADD FOREIGN KEY (teacher_id) REFERENCES TEACHERS (id);
+ALTER TABLE RECURRING_SESSION_EXCEPTIONS ADD FOREIGN KEY (recurring_session_id) REFERENCES RECURRING_SESSIONS (id);
 
 -- Insert initial test data
+INSERT INTO SESSIONS_SEQ (next_val) VALUES (1);
+
 INSERT INTO USERS (first_name, last_name, admin, email, password)
 VALUES ('Admin', 'Admin', true, 'yoga@studio.com', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq');
 
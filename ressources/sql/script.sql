@@ -7,17 +7,44 @@ CREATE TABLE `TEACHERS` (
   `last_name` VARCHAR(40),
   `first_name` VARCHAR(40),
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+  `updated_at` DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)
 );
 
 CREATE TABLE `SESSIONS` (
-  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `id` INT PRIMARY KEY,
   `name` VARCHAR(50),
   `description` VARCHAR(2000),
   `date` TIMESTAMP,
   `teacher_id` int,
+  `capacity` INT,
+  `participant_count` INT NOT NULL DEFAULT 0,
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+  `updated_at` DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+  `recurring_session_id` INT,
+  CONSTRAINT `UK_SESSIONS_OCCURRENCE` UNIQUE (`recurring_session_id`, `date`)
+);
+
+CREATE TABLE `SESSIONS_SEQ` (
+  `next_val` BIGINT NOT NULL
+);
+
+CREATE TABLE `RECURRING_SESSIONS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `name` VARCHAR(50),
+  `description` VARCHAR(2000),
+  `teacher_id` INT,
+  `capacity` INT,
+  `starts_at` DATETIME NOT NULL,
+  `ends_on` DATE,
+  `interval_weeks` INT NOT NULL DEFAULT 1,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)
+);
+
+CREATE TABLE `RECURRING_SESSION_EXCEPTIONS` (
+  `recurring_session_id` INT NOT NULL,
+  `occurrence_date` DATE NOT NULL,
+  PRIMARY KEY (`recurring_session_id`, `occurrence_date`)
 );
 
 CREATE TABLE `USERS` (
@@ -32,13 +59,23 @@ CREATE TABLE `USERS` (
 );
 
 CREATE TABLE `PARTICIPATE` (
-  `user_id` INT,
-  `session_id` INT
+  `user_id` INT NOT NULL,
+  `session_id` INT NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`),
+  KEY `IDX_PARTICIPATE_USER` (`user_id`)
 );
 
+CREATE INDEX `IDX_SESSIONS_DATE` ON `SESSIONS` (`date`, `id`);
+CREATE INDEX `IDX_SESSIONS_TEACHER_DATE` ON `SESSIONS` (`teacher_id`, `date`, `id`);
+
 ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
 ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
 ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`recurring_session_id`) REFERENCES `RECURRING_SESSIONS` (`id`);
+ALTER TABLE `RECURRING_SESSIONS` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+ALTER TABLE `RECURRING_SESSION_EXCEPTIONS` ADD FOREIGN KEY (`recurring_session_id`) REFERENCES `RECURRING_SESSIONS` (`id`);
+
+INSERT INTO `SESSIONS_SEQ` (`next_val`) VALUES (1);
 
 INSERT INTO TEACHERS (first_name, last_name)
 VALUES ('Margot', 'DELAHAYE'),